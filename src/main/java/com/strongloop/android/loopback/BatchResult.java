@@ -0,0 +1,77 @@
+package com.strongloop.android.loopback;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of a bulk operation of a {@link ModelRepository}, item by
+ * item. Items are identified by their index in the list passed to the
+ * operation, so equal items are reported separately.
+ * @param <E> The type of the items, a {@link Model} or a model id.
+ */
+public class BatchResult<E> {
+
+    private final List<E> items;
+    private final BitSet succeeded = new BitSet();
+    private final Map<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+
+    /* package private */ BatchResult(List<E> items) {
+        this.items = Collections.unmodifiableList(new ArrayList<E>(items));
+    }
+
+    /**
+     * Gets the items passed to the operation.
+     * @return the items, in the order they were given.
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the items processed successfully.
+     * @return the items, in the order they were given.
+     */
+    public List<E> getSucceeded() {
+        List<E> result = new ArrayList<E>(succeeded.cardinality());
+        for (int i = succeeded.nextSetBit(0); i >= 0; i = succeeded.nextSetBit(i + 1)) {
+            result.add(items.get(i));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets the items that could not be processed, with the reason.
+     * @return the errors, keyed by the index of the item in
+     * {@link #getItems()}.
+     */
+    public Map<Integer, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return <code>true</code> if all items were processed successfully.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{succeeded=" + succeeded.cardinality()
+                + ", failed=" + failures.size() + "}";
+    }
+
+    /* package private */ void add(List<Integer> indexes, Throwable error) {
+        for (int index : indexes) {
+            if (error == null) {
+                succeeded.set(index);
+            } else {
+                failures.put(index, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.strongloop.android.loopback;
+
+import com.google.common.collect.Lists;
+import com.strongloop.android.loopback.callbacks.TypedCallback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends batches of items with at most <code>concurrency</code> batches in
+ * flight, and reports the outcome of every item once all batches
+ * completed. Batches are given as indexes into the list of items, which
+ * is how the outcome of every item is reported.
+ */
+abstract class BatchRunner<E> {
+
+    private final Queue<List<E>> pendingBatches;
+    private final int concurrency;
+    private final TypedCallback<BatchResult<E>> callback;
+    private final BatchResult<E> result;
+    // The indexes of the items of each batch, keyed by batch identity.
+    private final Map<List<E>, List<Integer>> batchIndexes =
+            new IdentityHashMap<List<E>, List<Integer>>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private int batchesInFlight;
+    private int batchesLeft;
+
+    BatchRunner(List<E> items, List<List<Integer>> batches, int concurrency,
+                TypedCallback<BatchResult<E>> callback) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.result = new BatchResult<E>(items);
+        this.pendingBatches = new ArrayDeque<List<E>>(batches.size());
+        for (List<Integer> indexes : batches) {
+            List<E> batch = new ArrayList<E>(indexes.size());
+            for (int index : indexes) {
+                batch.add(items.get(index));
+            }
+            batchIndexes.put(batch, indexes);
+            pendingBatches.add(batch);
+        }
+        this.concurrency = concurrency;
+        this.callback = callback;
+        this.batchesLeft = batches.size();
+    }
+
+    void start() {
+        if (batchesLeft == 0) {
+            callback.onSuccess(result);
+        } else {
+            sendBatches();
+        }
+    }
+
+    /**
+     * Sends <code>batch</code>, then calls
+     * {@link #batchCompleted(List, Throwable)}.
+     */
+    protected abstract void send(List<E> batch);
+
+    /**
+     * Records the outcome of <code>batch</code>.
+     * @param error The reason all items of the batch failed, or
+     * <code>null</code> if they succeeded.
+     */
+    void batchCompleted(List<E> batch, Throwable error) {
+        boolean done;
+        synchronized (this) {
+            result.add(batchIndexes.get(batch), error);
+            batchesInFlight--;
+            done = --batchesLeft == 0;
+        }
+        if (done) {
+            callback.onSuccess(result);
+        } else {
+            sendBatches();
+        }
+    }
+
+    /**
+     * Splits <code>count</code> items into batches of up to
+     * <code>size</code> items.
+     */
+    static List<List<Integer>> partition(int count, int size) {
+        List<Integer> indexes = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            indexes.add(i);
+        }
+        return Lists.partition(indexes, size);
+    }
+
+    private void sendBatches() {
+        // Batches completing synchronously re-enter here; let the outer
+        // loop send their successors instead of recursing.
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (true) {
+                List<E> batch;
+                synchronized (this) {
+                    if (batchesInFlight >= concurrency || pendingBatches.isEmpty()) {
+                        break;
+                    }
+                    batch = pendingBatches.poll();
+                    batchesInFlight++;
+                }
+                try {
+                    send(batch);
+                } catch (RuntimeException e) {
+                    batchCompleted(batch, e);
+                }
+            }
+        } while (drainRequests.decrementAndGet() != 0);
+    }
+}
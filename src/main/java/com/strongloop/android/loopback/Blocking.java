@@ -0,0 +1,56 @@
+package com.strongloop.android.loopback;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.strongloop.android.remoting.adapters.RequestOptions;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Implements the blocking variants of the repository and model methods on
+ * top of their futures.
+ * <p>
+ * The calling thread is parked until the response arrives, without holding
+ * any monitor, so many threads can each wait for a call at little cost.
+ */
+final class Blocking {
+
+    private Blocking() {
+    }
+
+    /**
+     * @return the options of a request that must complete within
+     * <code>timeout</code> milliseconds, <code>0</code> meaning the
+     * timeouts of the adapter, and that is aborted when <code>future</code>
+     * is cancelled.
+     */
+    static RequestOptions options(long timeout, ListenableFuture<?> future) {
+        RequestOptions options = new RequestOptions();
+        options.setTimeout(timeout);
+        options.setCancellation(future);
+        return options;
+    }
+
+    /**
+     * Waits for <code>future</code>. The request is cancelled at its
+     * deadline, so this returns at that time at the latest.
+     * @throws LoopbackException if the call failed; the cause is the error
+     * passed to the callback.
+     * @throws InterruptedException if the thread was interrupted. The
+     * future is then cancelled, which aborts its request when it was sent
+     * with {@link #options(long, ListenableFuture)}.
+     */
+    static <V> V get(Future<V> future)
+            throws LoopbackException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new LoopbackException(cause.getMessage() != null
+                    ? cause.getMessage() : cause.toString(), cause);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.strongloop.android.loopback;
+
+import com.google.common.collect.ImmutableMap;
+import com.strongloop.android.loopback.callbacks.JsonObjectParser;
+import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.VoidCallback;
+import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.HttpResponseException;
+import com.strongloop.android.remoting.adapters.ProgressListener;
+import com.strongloop.android.remoting.adapters.StreamParam;
+import com.strongloop.android.util.Log;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.json.JSONObject;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a local file in fixed-size parts, several at a time, then asks
+ * the server to compose the parts into the final file.
+ * <p>
+ * Completed parts are recorded in a journal file next to the local file.
+ * A failed part is retried a few times. If it still fails, the upload
+ * fails and the journal is kept, so that the next upload of the same,
+ * unmodified file sends only the missing parts.
+ * <p>
+ * Parts are stored in the container under names starting with
+ * {@link #PART_PREFIX}, which {@link FileRepository#getAll} leaves out.
+ * When the server rejects the compose request, resuming cannot succeed
+ * either, so the parts and the journal are deleted.
+ */
+class ChunkedUpload {
+
+    static final String PART_PREFIX = ".upload-";
+
+    private static final int MAX_PART_ATTEMPTS = 3;
+
+    private final FileRepository repository;
+    private final java.io.File localFile;
+    private final java.io.File journalFile;
+    private final int concurrency;
+    private final long partSize;
+    private final ObjectCallback<File> callback;
+
+    private final long length;
+    private final int partCount;
+
+    // Guarded by this.
+    private String uploadId;
+    private final TreeSet<Integer> completedParts = new TreeSet<Integer>();
+    private final Queue<Integer> pendingParts = new ArrayDeque<Integer>();
+    private int partsInFlight;
+    private boolean finished;
+
+    ChunkedUpload(FileRepository repository, java.io.File localFile,
+                  int concurrency, long partSize, ObjectCallback<File> callback) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        if (partSize < 1) {
+            throw new IllegalArgumentException("Part size must be at least 1");
+        }
+        this.repository = repository;
+        this.localFile = localFile;
+        this.journalFile = new java.io.File(localFile.getPath() + ".upload");
+        this.concurrency = concurrency;
+        this.partSize = partSize;
+        this.callback = callback;
+        this.length = localFile.length();
+        this.partCount = (int) ((length + partSize - 1) / partSize);
+    }
+
+    void start() {
+        if (!localFile.isFile()) {
+            callback.onError(new IOException("Not a file: " + localFile));
+            return;
+        }
+        synchronized (this) {
+            loadJournal();
+            for (int part = 0; part < partCount; part++) {
+                if (!completedParts.contains(part)) {
+                    pendingParts.add(part);
+                }
+            }
+        }
+        if (!uploadNextParts()) {
+            compose();
+        }
+    }
+
+    /**
+     * Starts uploading parts until <code>concurrency</code> parts are in
+     * flight.
+     * @return <code>false</code> if there are no more parts to upload.
+     */
+    private boolean uploadNextParts() {
+        List<Integer> parts = new ArrayList<Integer>();
+        synchronized (this) {
+            while (!finished && partsInFlight < concurrency && !pendingParts.isEmpty()) {
+                parts.add(pendingParts.remove());
+                partsInFlight++;
+            }
+            if (parts.isEmpty()) {
+                return partsInFlight > 0;
+            }
+        }
+        for (int part : parts) {
+            uploadPart(part, 1);
+        }
+        return true;
+    }
+
+    private void uploadPart(final int part, final int attempt) {
+        final long offset = part * partSize;
+        final long size = Math.min(partSize, length - offset);
+        StreamParam param;
+        try {
+            FileInputStream in = new FileInputStream(localFile);
+            try {
+                in.getChannel().position(offset);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            param = new StreamParam(new BoundedInputStream(in, size),
+                    getPartName(part), "application/octet-stream", size);
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("container", repository.getContainerName());
+        params.put("file", param);
+        repository.invokeStaticMethod("upload", params, new Adapter.JsonObjectCallback() {
+            @Override
+            public void onSuccess(JSONObject response) {
+                partCompleted(part, size);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (attempt < MAX_PART_ATTEMPTS && !isFinished()) {
+                    Log.getLogger().warning("Retrying part " + part + " of "
+                            + localFile + ": " + t);
+                    uploadPart(part, attempt + 1);
+                } else {
+                    fail(t);
+                }
+            }
+        });
+    }
+
+    private void partCompleted(int part, long size) {
+        boolean done;
+        long uploaded;
+        synchronized (this) {
+            partsInFlight--;
+            completedParts.add(part);
+            saveJournal();
+            if (finished) {
+                // Failed meanwhile, the part is kept for the next attempt.
+                return;
+            }
+            done = completedParts.size() == partCount;
+            uploaded = Math.min(length, completedParts.size() * partSize);
+        }
+        if (callback instanceof ProgressListener) {
+            ((ProgressListener) callback).onProgress(uploaded, length);
+        }
+        if (done) {
+            compose();
+        } else {
+            uploadNextParts();
+        }
+    }
+
+    private void compose() {
+        List<String> parts = new ArrayList<String>();
+        for (int part = 0; part < partCount; part++) {
+            parts.add(getPartName(part));
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("container", repository.getContainerName());
+        params.put("name", localFile.getName());
+        params.put("parts", parts);
+        repository.invokeStaticMethod("compose", params,
+                new JsonObjectParser<File>(repository, new ObjectCallback<File>() {
+                    @Override
+                    public void onSuccess(File file) {
+                        if (file == null || !localFile.getName().equals(file.getName())) {
+                            // E.g. the error of a server without compose.
+                            abandon(new LoopbackException("Cannot compose "
+                                    + localFile.getName() + " from its parts"));
+                            return;
+                        }
+                        synchronized (ChunkedUpload.this) {
+                            finished = true;
+                        }
+                        journalFile.delete();
+                        callback.onSuccess(file);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (t instanceof HttpResponseException
+                                && ((HttpResponseException) t).getStatusCode() < 500) {
+                            abandon(t);
+                        } else {
+                            fail(t);
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * Fails the upload for good: deletes the parts uploaded so far and the
+     * journal, then reports <code>t</code>.
+     */
+    private void abandon(final Throwable t) {
+        List<Integer> parts;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            parts = new ArrayList<Integer>(completedParts);
+            completedParts.clear();
+        }
+        journalFile.delete();
+        if (parts.isEmpty()) {
+            callback.onError(t);
+            return;
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(parts.size());
+        VoidCallback deleted = new VoidCallback() {
+            @Override
+            public void onSuccess() {
+                if (remaining.decrementAndGet() == 0) {
+                    callback.onError(t);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                Log.getLogger().warning("Cannot delete a part of "
+                        + localFile + ": " + error);
+                onSuccess();
+            }
+        };
+        for (int part : parts) {
+            repository.createObject(ImmutableMap.of("name", getPartName(part)))
+                    .delete(deleted);
+        }
+    }
+
+    private void fail(Throwable t) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+        }
+        callback.onError(t);
+    }
+
+    private synchronized boolean isFinished() {
+        return finished;
+    }
+
+    private String getPartName(int part) {
+        return PART_PREFIX + uploadId + ".part" + part;
+    }
+
+    private void loadJournal() {
+        Properties journal = new Properties();
+        if (journalFile.isFile()) {
+            try {
+                InputStream in = new FileInputStream(journalFile);
+                try {
+                    journal.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                Log.getLogger().warning("Ignoring unreadable upload journal "
+                        + journalFile + ": " + e);
+                journal.clear();
+            }
+        }
+
+        if (getJournalKey().equals(journal.getProperty("key"))
+                && journal.getProperty("uploadId") != null) {
+            uploadId = journal.getProperty("uploadId");
+            String parts = journal.getProperty("parts", "");
+            for (String part : parts.split(",")) {
+                if (!part.isEmpty()) {
+                    completedParts.add(Integer.valueOf(part));
+                }
+            }
+        } else {
+            uploadId = UUID.randomUUID().toString().replace("-", "");
+        }
+    }
+
+    private void saveJournal() {
+        StringBuilder parts = new StringBuilder();
+        for (int part : completedParts) {
+            if (parts.length() > 0) {
+                parts.append(',');
+            }
+            parts.append(part);
+        }
+        Properties journal = new Properties();
+        journal.setProperty("key", getJournalKey());
+        journal.setProperty("uploadId", uploadId);
+        journal.setProperty("parts", parts.toString());
+
+        // Write a new file and rename it, so that a crash never leaves a
+        // truncated journal behind.
+        java.io.File tmp = new java.io.File(journalFile.getPath() + ".tmp");
+        try {
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                journal.store(out, null);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(journalFile)) {
+                journalFile.delete();
+                if (!tmp.renameTo(journalFile)) {
+                    throw new IOException("Cannot rename " + tmp);
+                }
+            }
+        } catch (IOException e) {
+            // The upload goes on, it just cannot be resumed.
+            Log.getLogger().warning("Cannot write upload journal "
+                    + journalFile + ": " + e);
+        }
+    }
+
+    /**
+     * Identifies the upload. A journal written for another container, part
+     * size, or version of the file is ignored.
+     */
+    private String getJournalKey() {
+        return repository.getContainerName() + "/" + localFile.getName()
+                + ":" + length + ":" + localFile.lastModified() + ":" + partSize;
+    }
+}
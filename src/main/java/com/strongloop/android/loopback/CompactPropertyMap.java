@@ -0,0 +1,140 @@
+package com.strongloop.android.loopback;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of model properties that keeps only an array of values per model.
+ * The property names are held once, by a {@link PropertySchema} shared by
+ * all the models of a repository.
+ */
+class CompactPropertyMap extends AbstractMap<String, Object> {
+
+    private static final Object ABSENT = new Object();
+    private static final Object[] EMPTY = new Object[0];
+
+    private final PropertySchema schema;
+    private Object[] values = EMPTY;
+    private int size;
+
+    CompactPropertyMap(PropertySchema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return valueAt(slotOf(key)) != ABSENT;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = valueAt(slotOf(key));
+        return value != ABSENT ? value : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = schema.addSlot(key);
+        if (slot >= values.length) {
+            int length = values.length;
+            values = Arrays.copyOf(values, slot + 1);
+            Arrays.fill(values, length, values.length, ABSENT);
+        }
+        Object previous = values[slot];
+        values[slot] = value;
+        if (previous == ABSENT) {
+            size++;
+            return null;
+        }
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = slotOf(key);
+        Object previous = valueAt(slot);
+        if (previous == ABSENT) {
+            return null;
+        }
+        values[slot] = ABSENT;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        values = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private int slotOf(Object key) {
+        return key instanceof String ? schema.slotOf((String) key) : -1;
+    }
+
+    private Object valueAt(int slot) {
+        return slot >= 0 && slot < values.length ? values[slot] : ABSENT;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next = advance(0);
+        private int last = -1;
+
+        private int advance(int slot) {
+            while (slot < values.length && values[slot] == ABSENT) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new SimpleImmutableEntry<String, Object>(
+                    schema.nameAt(last), values[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            values[last] = ABSENT;
+            size--;
+            last = -1;
+        }
+    }
+}
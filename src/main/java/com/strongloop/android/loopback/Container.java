@@ -65,8 +65,6 @@ public class Container extends VirtualObject {
 
     public FileRepository getFileRepository() {
         RestAdapter adapter = ((RestAdapter)getRepository().getAdapter());
-        FileRepository repo = adapter.createRepository(FileRepository.class);
-        repo.setContainer(this);
-        return repo;
+        return adapter.getFileRepository(this);
     }
 }
@@ -1,14 +1,19 @@
 package com.strongloop.android.loopback;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.strongloop.android.loopback.callbacks.JsonArrayParser;
 import com.strongloop.android.loopback.callbacks.JsonObjectParser;
 import com.strongloop.android.loopback.callbacks.ListCallback;
+import com.strongloop.android.loopback.callbacks.ListFuture;
 import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.ObjectFuture;
 import com.strongloop.android.remoting.adapters.Adapter;
 import com.strongloop.android.remoting.adapters.RestContract;
 import com.strongloop.android.remoting.adapters.RestContractItem;
 
+import java.util.List;
+
 public class ContainerRepository extends RestRepository<Container> {
 
     private String getNameForRestUrl() {
@@ -76,4 +81,36 @@ public class ContainerRepository extends RestRepository<Container> {
         invokeStaticMethod("getAll", null,
                 new JsonArrayParser<Container>(this, callback));
     }
-}
\ No newline at end of file
+
+    /**
+     * Create a new container.
+     * @param name The name of the container, must be unique.
+     * @return A future completed with the container created.
+     */
+    public ListenableFuture<Container> createAsync(String name) {
+        ObjectFuture<Container> future = new ObjectFuture<Container>();
+        create(name, future);
+        return future;
+    }
+
+    /**
+     * Get a named container
+     * @param containerName The container name.
+     * @return A future completed with the container.
+     */
+    public ListenableFuture<Container> getAsync(String containerName) {
+        ObjectFuture<Container> future = new ObjectFuture<Container>();
+        get(containerName, future);
+        return future;
+    }
+
+    /**
+     * List all containers.
+     * @return A future completed with the list of containers.
+     */
+    public ListenableFuture<List<Container>> getAllAsync() {
+        ListFuture<Container> future = new ListFuture<Container>();
+        getAll(future);
+        return future;
+    }
+}
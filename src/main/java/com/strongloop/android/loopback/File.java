@@ -7,8 +7,13 @@ import com.strongloop.android.loopback.callbacks.VoidCallback;
 import com.strongloop.android.remoting.Transient;
 import com.strongloop.android.remoting.VirtualObject;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.ResponseInputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 public class File extends VirtualObject {
@@ -69,12 +74,44 @@ public class File extends VirtualObject {
     }
 
     /**
-     * Download content of this file to a local file.
+     * Download content of this file to a local file. The content is written
+     * as it arrives, it is never held in memory as a whole. The local file
+     * is not touched if the server reports an error, and it is removed if
+     * the download fails midway.
      * @param localFile Path to the local file.
      * @param callback The callback to be executed when finished.
      */
     public void download(final java.io.File localFile, final VoidCallback callback) {
-        download(new DownloadCallback() {
+        invokeMethod("download", getCommonParams(), new Adapter.BinaryStreamCallback() {
+            private FileChannel channel;
+
+            @Override
+            public void onStart(int statusCode, Map<String, String> headers)
+                    throws IOException {
+                channel = FileChannel.open(localFile.toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+
+            @Override
+            public void onBodyPart(ByteBuffer bodyPart) throws IOException {
+                while (bodyPart.hasRemaining()) {
+                    channel.write(bodyPart);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    onError(ex);
+                    return;
+                }
+                callback.onSuccess();
+            }
+
             @Override
             public void onSuccess(byte[] content, String contentType) {
                 try {
@@ -87,12 +124,50 @@ public class File extends VirtualObject {
 
             @Override
             public void onError(Throwable error) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                    }
+                    localFile.delete();
+                }
                 callback.onError(error);
-
             }
         });
     }
 
+    /**
+     * Download content of this file to a local file, fetching byte ranges
+     * of the file concurrently. Each range is written at its offset in the
+     * local file as it arrives. Servers that do not support ranges send the
+     * whole content in response to the first range.
+     * <p>
+     * The ranges share the connection pool of the adapter, so
+     * <code>concurrency</code> should not exceed its limit of connections
+     * per host.
+     * @param localFile Path to the local file.
+     * @param concurrency The maximum number of ranges fetched at once.
+     * @param chunkSize The size of each range in bytes.
+     * @param callback The callback to be executed when finished.
+     */
+    public void download(java.io.File localFile, int concurrency, long chunkSize,
+                         VoidCallback callback) {
+        new RangedDownload(this, getCommonParams(), localFile, concurrency,
+                chunkSize, callback).start();
+    }
+
+    /**
+     * Download content of this file as a stream. The returned stream is
+     * filled while it is read, errors are thrown from its read methods.
+     * The stream must be closed.
+     * @return A stream over the content of this file.
+     */
+    public InputStream openStream() {
+        ResponseInputStream stream = new ResponseInputStream();
+        invokeMethod("download", getCommonParams(), stream);
+        return stream;
+    }
+
     /**
      * Delete this file.
      * @param callback The callback to be executed when finished.
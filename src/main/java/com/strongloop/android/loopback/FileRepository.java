@@ -1,12 +1,16 @@
 package com.strongloop.android.loopback;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.strongloop.android.loopback.callbacks.JsonArrayParser;
 import com.strongloop.android.loopback.callbacks.JsonObjectParser;
 import com.strongloop.android.loopback.callbacks.ListCallback;
+import com.strongloop.android.loopback.callbacks.ListFuture;
 import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.ObjectFuture;
 import com.strongloop.android.remoting.JsonUtil;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.ProgressListener;
 import com.strongloop.android.remoting.adapters.RestContract;
 import com.strongloop.android.remoting.adapters.RestContractItem;
 import com.strongloop.android.remoting.adapters.StreamParam;
@@ -15,8 +19,12 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class FileRepository extends RestRepository<File> {
@@ -63,6 +71,9 @@ public class FileRepository extends RestRepository<File> {
                 RestContractItem.createMultipart(basePath + "/upload", "POST"),
                 className + ".upload");
 
+        contract.addItem(new RestContractItem(basePath + "/compose", "POST"),
+                className + ".compose");
+
         contract.addItem(new RestContractItem(basePath +  "/download/:name", "GET"),
                 className + ".prototype.download");
 
@@ -97,11 +108,16 @@ public class FileRepository extends RestRepository<File> {
      * @param content Content of the file.
      * @param contentType Content type (optional).
      * @param callback The callback to be executed when finished.
+     *                 If it implements {@link ProgressListener}, it is
+     *                 notified as the content is sent.
      */
     public void upload(String name, InputStream content, String contentType,
                        final ObjectCallback<File> callback) {
 
         StreamParam param = new StreamParam(content, name, contentType);
+        if (callback instanceof ProgressListener) {
+            param.setProgressListener((ProgressListener) callback);
+        }
         invokeStaticMethod("upload",
                 ImmutableMap.of("container", getContainerName(), "file", param),
                 new UploadResponseParser(this, callback));
@@ -111,13 +127,53 @@ public class FileRepository extends RestRepository<File> {
      * Upload a new file
      * @param localFile The local file to upload.
      * @param callback The callback to be executed when finished.
+     *                 If it implements {@link ProgressListener}, it is
+     *                 notified as the content is sent.
      */
     public void upload(java.io.File localFile, final ObjectCallback<File> callback) {
+        Object param = localFile;
+        if (callback instanceof ProgressListener) {
+            StreamParam streamParam;
+            try {
+                streamParam = new StreamParam(new FileInputStream(localFile),
+                        localFile.getName(), null, localFile.length());
+            } catch (FileNotFoundException e) {
+                callback.onError(e);
+                return;
+            }
+            streamParam.setProgressListener((ProgressListener) callback);
+            param = streamParam;
+        }
         invokeStaticMethod("upload",
-                ImmutableMap.of("container", getContainerName(), "file", localFile),
+                ImmutableMap.of("container", getContainerName(), "file", param),
                 new UploadResponseParser(this, callback));
     }
 
+    /**
+     * Upload a new file in parts of <code>partSize</code> bytes, sending up
+     * to <code>concurrency</code> parts at once. Failed parts are retried.
+     * <p>
+     * Completed parts are recorded in a journal next to the local file,
+     * named after it with an <code>.upload</code> suffix. If the upload
+     * fails, uploading the same unmodified file again with the same part
+     * size sends only the missing parts. The server must provide the
+     * <code>compose</code> method of the container model, which joins the
+     * parts into the final file. Until then, the parts are files of the
+     * container named with a <code>.upload-</code> prefix, which
+     * {@link #getAll(ListCallback)} leaves out. They are deleted if the
+     * server rejects the request to compose them.
+     * @param localFile The local file to upload.
+     * @param concurrency The maximum number of parts sent at once.
+     * @param partSize The size of each part in bytes.
+     * @param callback The callback to be executed when finished.
+     *                 If it implements {@link ProgressListener}, it is
+     *                 notified as parts complete.
+     */
+    public void upload(java.io.File localFile, int concurrency, long partSize,
+                       ObjectCallback<File> callback) {
+        new ChunkedUpload(this, localFile, concurrency, partSize, callback).start();
+    }
+
     /**
      * Get file by name
      * @param name The name of the file to get.
@@ -133,13 +189,106 @@ public class FileRepository extends RestRepository<File> {
     }
 
     /**
-     * List all files in the container.
+     * List all files in the container, except the parts of uploads in
+     * progress.
      * @param callback The callback to be executed when finished.
      */
-    public void getAll(ListCallback<File> callback) {
+    public void getAll(final ListCallback<File> callback) {
         invokeStaticMethod("getAll",
                 ImmutableMap.of("container", getContainerName()),
-                new JsonArrayParser<File>(this, callback));
+                new JsonArrayParser<File>(this, new ListCallback<File>() {
+                    @Override
+                    public void onSuccess(List<File> files) {
+                        List<File> result = new ArrayList<File>(files.size());
+                        for (File file : files) {
+                            String name = file.getName();
+                            if (name == null || !name.startsWith(ChunkedUpload.PART_PREFIX)) {
+                                result.add(file);
+                            }
+                        }
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        callback.onError(t);
+                    }
+                }));
+    }
+
+    /**
+     * Upload a new file
+     * @param name The file name, must be unique within the container.
+     * @param content Content of the file.
+     * @param contentType Content type (optional).
+     * @return A future completed with the uploaded file.
+     */
+    public ListenableFuture<File> uploadAsync(String name, byte[] content,
+                                              String contentType) {
+        ObjectFuture<File> future = new ObjectFuture<File>();
+        upload(name, content, contentType, future);
+        return future;
+    }
+
+    /**
+     * Upload a new file
+     * @param name The file name, must be unique within the container.
+     * @param content Content of the file.
+     * @param contentType Content type (optional).
+     * @return A future completed with the uploaded file.
+     */
+    public ListenableFuture<File> uploadAsync(String name, InputStream content,
+                                              String contentType) {
+        ObjectFuture<File> future = new ObjectFuture<File>();
+        upload(name, content, contentType, future);
+        return future;
+    }
+
+    /**
+     * Upload a new file
+     * @param localFile The local file to upload.
+     * @return A future completed with the uploaded file.
+     */
+    public ListenableFuture<File> uploadAsync(java.io.File localFile) {
+        ObjectFuture<File> future = new ObjectFuture<File>();
+        upload(localFile, future);
+        return future;
+    }
+
+    /**
+     * Upload a new file in parts, see
+     * {@link #upload(java.io.File, int, long, ObjectCallback)}.
+     * @param localFile The local file to upload.
+     * @param concurrency The maximum number of parts sent at once.
+     * @param partSize The size of each part in bytes.
+     * @return A future completed with the uploaded file.
+     */
+    public ListenableFuture<File> uploadAsync(java.io.File localFile,
+                                              int concurrency, long partSize) {
+        ObjectFuture<File> future = new ObjectFuture<File>();
+        upload(localFile, concurrency, partSize, future);
+        return future;
+    }
+
+    /**
+     * Get file by name
+     * @param name The name of the file to get.
+     * @return A future completed with the file.
+     */
+    public ListenableFuture<File> getAsync(String name) {
+        ObjectFuture<File> future = new ObjectFuture<File>();
+        get(name, future);
+        return future;
+    }
+
+    /**
+     * List all files in the container.
+     * @return A future completed with the list of files.
+     */
+    public ListenableFuture<List<File>> getAllAsync() {
+        ListFuture<File> future = new ListFuture<File>();
+        getAll(future);
+        return future;
     }
 
     private class UploadResponseParser extends Adapter.JsonObjectCallback {
@@ -0,0 +1,188 @@
+package com.strongloop.android.loopback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A LoopBack query filter, narrowing down the models returned by
+ * {@link ModelRepository#findAll(Filter,
+ * com.strongloop.android.loopback.callbacks.ListCallback)}.
+ * <p>
+ * The filter is evaluated on the server, so only the matching models, and
+ * only the requested properties, are downloaded.
+ * <pre>
+ * {@code
+ * Filter filter = new Filter()
+ *         .where("bars", "gt", 10)
+ *         .fields("id", "name")
+ *         .order("name")
+ *         .limit(50)
+ *         .skip(100);
+ * repository.findAll(filter, callback);
+ * }
+ * </pre>
+ */
+public class Filter {
+
+    private final Map<String, Object> where = new LinkedHashMap<String, Object>();
+    private final Map<String, Object> fields = new LinkedHashMap<String, Object>();
+    private final List<String> order = new ArrayList<String>();
+    private final List<String> include = new ArrayList<String>();
+    private Integer limit;
+    private Integer skip;
+
+    /**
+     * Only matches models whose <code>property</code> equals
+     * <code>value</code>.
+     * @param property The property name.
+     * @param value The expected value.
+     * @return this filter.
+     */
+    public Filter where(String property, Object value) {
+        where.put(property, value);
+        return this;
+    }
+
+    /**
+     * Only matches models whose <code>property</code> satisfies a LoopBack
+     * operator, e.g. <code>where("bars", "gt", 10)</code> or
+     * <code>where("id", "inq", Arrays.asList(1, 2, 3))</code>.
+     * @param property The property name.
+     * @param operator The operator: <code>gt</code>, <code>gte</code>,
+     * <code>lt</code>, <code>lte</code>, <code>between</code>,
+     * <code>inq</code>, <code>nin</code>, <code>neq</code>,
+     * <code>like</code> or <code>nlike</code>.
+     * @param value The operand. Use a {@link List} for <code>between</code>,
+     * <code>inq</code> and <code>nin</code>.
+     * @return this filter.
+     */
+    public Filter where(String property, String operator, Object value) {
+        Map<String, Object> condition = new HashMap<String, Object>();
+        condition.put(operator, value);
+        where.put(property, condition);
+        return this;
+    }
+
+    /**
+     * Only downloads the given properties of the models. The id is not
+     * downloaded unless it is listed.
+     * @param properties The property names.
+     * @return this filter.
+     */
+    public Filter fields(String... properties) {
+        for (String property : properties) {
+            fields.put(property, true);
+        }
+        return this;
+    }
+
+    /**
+     * Sorts the models by <code>property</code>, in ascending order. Call
+     * it again to break ties with another property.
+     * @param property The property name.
+     * @return this filter.
+     */
+    public Filter order(String property) {
+        order.add(property + " ASC");
+        return this;
+    }
+
+    /**
+     * Sorts the models by <code>property</code>, in descending order.
+     * @param property The property name.
+     * @return this filter.
+     */
+    public Filter orderDescending(String property) {
+        order.add(property + " DESC");
+        return this;
+    }
+
+    /**
+     * Returns at most <code>limit</code> models.
+     * @param limit The maximum number of models.
+     * @return this filter.
+     */
+    public Filter limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Skips the first <code>skip</code> matching models.
+     * @param skip The number of models to skip.
+     * @return this filter.
+     */
+    public Filter skip(int skip) {
+        this.skip = skip;
+        return this;
+    }
+
+    /**
+     * Includes the related models of the given relations in the result.
+     * @param relations The relation names.
+     * @return this filter.
+     */
+    public Filter include(String... relations) {
+        include.addAll(Arrays.asList(relations));
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of models returned.
+     * @return the limit, or <code>null</code> if not set.
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the number of matching models skipped.
+     * @return the number of models, or <code>null</code> if not set.
+     */
+    public Integer getSkip() {
+        return skip;
+    }
+
+    /* package private */ Filter copy() {
+        Filter copy = new Filter();
+        copy.where.putAll(where);
+        copy.fields.putAll(fields);
+        copy.order.addAll(order);
+        copy.include.addAll(include);
+        copy.limit = limit;
+        copy.skip = skip;
+        return copy;
+    }
+
+    /**
+     * Converts the filter into the {@link Map} sent as the
+     * <code>filter</code> parameter of a LoopBack query.
+     * @return the filter as a map.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        if (!where.isEmpty()) {
+            map.put("where", new LinkedHashMap<String, Object>(where));
+        }
+        if (!fields.isEmpty()) {
+            map.put("fields", new LinkedHashMap<String, Object>(fields));
+        }
+        if (!order.isEmpty()) {
+            map.put("order", new ArrayList<String>(order));
+        }
+        if (limit != null) {
+            map.put("limit", limit);
+        }
+        if (skip != null) {
+            map.put("skip", skip);
+        }
+        if (!include.isEmpty()) {
+            map.put("include", new ArrayList<String>(include));
+        }
+        return map;
+    }
+}
@@ -265,7 +265,7 @@ public class LocalInstallation {
      */
     public void save(final VoidCallback callback) {
         ModelRepository<Model> repository =
-                loopbackAdapter.createRepository("installation");
+                loopbackAdapter.getRepository("installation");
         final Model model = repository.createModel(
                 BeanUtil.getProperties(this, false, false));
 
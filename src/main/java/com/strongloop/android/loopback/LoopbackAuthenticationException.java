@@ -7,4 +7,8 @@ public class LoopbackAuthenticationException extends LoopbackException {
     public LoopbackAuthenticationException(String message) {
         super(message);
     }
+
+    public LoopbackAuthenticationException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -8,4 +8,8 @@ public class LoopbackException extends Exception {
     public LoopbackException(String message) {
         super(message);
     }
+
+    public LoopbackException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -1,6 +1,8 @@
 package com.strongloop.android.loopback;
 
 import com.strongloop.android.loopback.callbacks.TypedCallback;
+import com.strongloop.android.remoting.adapters.RequestOptions;
+import com.strongloop.android.remoting.adapters.RequestTimeoutException;
 import org.atteo.evo.inflector.English;
 
 import java.io.*;
@@ -18,6 +20,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class LoopbackInterface {
 
+    /**
+     * How long {@link #loginSynchronously(String, String)} waits for the server, in milliseconds.
+     */
+    public static final long DEFAULT_LOGIN_TIMEOUT = 10000;
+
     private final String url;
     private final RestAdapter restAdapter;
     private UserRepository<User> userRepository;
@@ -105,7 +112,7 @@ public class LoopbackInterface {
      * @param callback callback upon finishing
      */
     public void loginAsync(String username, String password, final TypedCallback<User> callback) {
-        this.userRepository.loginUser(username, password, new UserRepository.LoginCallback<User>() {
+        getUserRepository().loginUser(username, password, new UserRepository.LoginCallback<User>() {
             @Override
             public void onSuccess(AccessToken token, User currentUser) {
                 setCurrentUser(currentUser);
@@ -121,19 +128,35 @@ public class LoopbackInterface {
 
     /**
      * Synchronously creates an authenticated session for the Loopback server handled by this interface.
+     * Gives up after {@link #DEFAULT_LOGIN_TIMEOUT} milliseconds.
      *
      * @param username username/email of the user on the server
      * @param password plainttext password for the user on the server
      * @return true if login succeeded, false otherwise
      */
     public boolean loginSynchronously(String username, String password) throws LoopbackAuthenticationException {
-        if (this.userRepository == null) {
-            this.userRepository = new UserRepository<User>("User", "users", User.class);
-        }
+        return loginSynchronously(username, password, DEFAULT_LOGIN_TIMEOUT);
+    }
 
+    /**
+     * Synchronously creates an authenticated session for the Loopback server handled by this interface.
+     * The login request is cancelled if it is not answered within <code>timeout</code>.
+     *
+     * @param username username/email of the user on the server
+     * @param password plainttext password for the user on the server
+     * @param timeout  how long to wait for the server, in milliseconds, or <code>0</code>
+     *                 to only apply the timeouts of the adapter
+     * @return true if login succeeded, false otherwise
+     */
+    public boolean loginSynchronously(String username, String password, long timeout) throws LoopbackAuthenticationException {
         final CountDownLatch synchLatch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
 
-        this.userRepository.loginUser(username, password, new UserRepository.LoginCallback<User>() {
+        RequestOptions options = new RequestOptions();
+        if (timeout > 0) {
+            options.setTimeout(timeout);
+        }
+        getUserRepository().loginUser(username, password, options, new UserRepository.LoginCallback<User>() {
             @Override
             public void onSuccess(AccessToken token, User currentUser) {
                 setCurrentUser(currentUser);
@@ -142,32 +165,46 @@ public class LoopbackInterface {
 
             @Override
             public void onError(Throwable t) {
+                error[0] = t;
                 synchLatch.countDown();
             }
         });
 
-        while (true) {
-            try {
-                synchLatch.await(10, TimeUnit.SECONDS);
+        try {
+            // The request is cancelled at the deadline, so the callback
+            // runs shortly after it at the latest.
+            boolean finished;
+            if (timeout > 0) {
+                finished = synchLatch.await(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                synchLatch.await();
+                finished = true;
+            }
+            if (!finished || error[0] instanceof RequestTimeoutException) {
+                throw new LoopbackAuthenticationException("Login attempt timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoopbackAuthenticationException("Login attempt interrupted");
+        }
 
-                // We timed out!
-                if (synchLatch.getCount() == 0 && getCurrentUser() == null) {
-                    throw new LoopbackAuthenticationException("Login attempt timed out");
-                }
+        // Finished, but failed to log user in
+        if (getCurrentUser() == null) {
+            throw new LoopbackAuthenticationException("Login attempt failed, please check username and password");
+        }
 
-                // Finished, but failed to log user in
-                else if (getCurrentUser() == null) {
-                    throw new LoopbackAuthenticationException("Login attempt failed, please check username and password");
-                }
+        //Succesfully logged the user in
+        return true;
+    }
 
-                //Succesfully logged the user in
-                else {
-                    return true;
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    private synchronized UserRepository<User> getUserRepository() {
+        if (this.userRepository == null) {
+            UserRepository<User> repository =
+                    new UserRepository<User>("User", "users", User.class);
+            restAdapter.attachModelRepository(repository);
+            this.userRepository = repository;
         }
+        return this.userRepository;
     }
 
     private void setCurrentUser(User currentUser) {
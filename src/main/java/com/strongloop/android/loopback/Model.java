@@ -2,13 +2,21 @@
 
 package com.strongloop.android.loopback;
 
+import com.google.common.base.Objects;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.strongloop.android.loopback.callbacks.VoidCallback;
+import com.strongloop.android.loopback.callbacks.VoidFuture;
+import com.strongloop.android.remoting.BeanUtil;
 import com.strongloop.android.remoting.Repository;
+import com.strongloop.android.remoting.Transient;
 import com.strongloop.android.remoting.VirtualObject;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,6 +34,8 @@ public class Model extends VirtualObject {
 
     private Object id;
     private Map<String, Object> overflow = new HashMap<String, Object>();
+    private volatile Map<String, Object> savedState;
+    private PropertySchema schema;
 
     public Model(Repository repository,
             Map<String, ? extends Object> creationParameters) {
@@ -48,6 +58,35 @@ public class Model extends VirtualObject {
         this.id = id;
     }
 
+    /**
+     * Moves the properties to array-backed storage keyed by
+     * <code>schema</code>, shared with the other models of the repository.
+     */
+    /* package private */ void useCompactStorage(PropertySchema schema) {
+        Map<String, Object> compact = new CompactPropertyMap(schema);
+        compact.putAll(overflow);
+        this.overflow = compact;
+        this.schema = schema;
+    }
+
+    /* package private */ boolean usesCompactStorage() {
+        return schema != null;
+    }
+
+    /**
+     * Replaces the state of this model with the state of
+     * <code>loaded</code>, a model just created from a server response.
+     * Properties <code>loaded</code> does not have are dropped, bean
+     * properties take the values of <code>loaded</code>.
+     */
+    /* package private */ void resetTo(Model loaded) {
+        BeanUtil.setProperties(this, BeanUtil.getProperties(loaded, true, false), true);
+        setCreationParameters(loaded.getCreationParameters());
+        id = loaded.id;
+        overflow = loaded.overflow;
+        schema = loaded.schema;
+    }
+
     /**
      * Gets the value associated with a given key.
      * @param key The key for which to return the corresponding value.
@@ -93,11 +132,26 @@ public class Model extends VirtualObject {
      * Saves the Model to the server.
      * <p>
      * This method calls {@link #toMap()} to determine which fields should be
-     * saved.
+     * saved. A model loaded from the server, or saved before, only sends
+     * the properties changed since then, and is not sent at all when
+     * nothing changed.
      * @param callback The callback to be executed when finished.
      */
     public void save(final VoidCallback callback) {
-        invokeMethod(id == null ? "create" : "save", toMap(), new Adapter.JsonObjectCallback() {
+        save(null, callback);
+    }
+
+    /**
+     * Saves the Model to the server, with settings specific to this request.
+     * @see #save(VoidCallback)
+     * @param options The request options, e.g. its timeout.
+     * @param callback The callback to be executed when finished.
+     */
+    public void save(RequestOptions options, final VoidCallback callback) {
+        final Map<String, Object> state = copyState(toMap());
+        Map<String, Object> savedState = this.savedState;
+
+        Adapter.JsonObjectCallback handler = new Adapter.JsonObjectCallback() {
 
             @Override
             public void onError(Throwable t) {
@@ -110,9 +164,155 @@ public class Model extends VirtualObject {
                 if (id != null) {
                     setId(id);
                 }
+                Model.this.savedState = state;
+                if (getRepository() instanceof ModelRepository) {
+                    ((ModelRepository<?>) getRepository()).modelSaved(Model.this);
+                }
                 callback.onSuccess();
             }
-        });
+        };
+
+        if (id == null || savedState == null) {
+            invokeMethod(id == null ? "create" : "save", state, options, handler);
+            return;
+        }
+
+        Map<String, Object> changes = diffState(savedState, state);
+        if (changes.isEmpty()) {
+            callback.onSuccess();
+            return;
+        }
+
+        // The creation parameters hold the whole model as loaded, so they
+        // are left out: only the id and the changes are sent.
+        Map<String, Object> constructorParameters = new HashMap<String, Object>();
+        constructorParameters.put("id", id);
+        getRepository().getAdapter().invokeInstanceMethod(
+                getRepository().getClassName() + ".prototype.save",
+                constructorParameters, changes, options, handler);
+    }
+
+    /**
+     * Saves the Model to the server, blocking the calling thread until done.
+     * @see #save(VoidCallback)
+     * @throws LoopbackException if the request failed.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public void save() throws LoopbackException, InterruptedException {
+        save(0);
+    }
+
+    /**
+     * Saves the Model to the server, blocking the calling thread until done.
+     * @see #save(VoidCallback)
+     * @param timeout How long the request may take, in milliseconds, or
+     * <code>0</code> to only apply the timeouts of the adapter.
+     * @throws LoopbackException if the request failed. When it timed out,
+     * the cause is a
+     * {@link com.strongloop.android.remoting.adapters.RequestTimeoutException}.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public void save(long timeout) throws LoopbackException, InterruptedException {
+        VoidFuture future = new VoidFuture();
+        save(Blocking.options(timeout, future), future);
+        Blocking.get(future);
+    }
+
+    /**
+     * Gets whether the model changed since it was loaded from or saved to
+     * the server. A model never loaded nor saved is always dirty.
+     * @return <code>true</code> if {@link #save(VoidCallback)} would send
+     * a request.
+     */
+    @Transient
+    public boolean isDirty() {
+        return id == null || savedState == null || !getChanges().isEmpty();
+    }
+
+    /**
+     * Gets the properties changed since the model was loaded from or saved
+     * to the server, whether they were changed with {@link #put(String,
+     * Object)} or with bean setters.
+     * @return the changed properties and their new values, or all
+     * properties if the model was never loaded nor saved.
+     */
+    @Transient
+    public Map<String, Object> getChanges() {
+        Map<String, Object> state = copyState(toMap());
+        Map<String, Object> savedState = this.savedState;
+        return savedState != null ? diffState(savedState, state) : state;
+    }
+
+    /**
+     * Records the current properties as the state saved on the server.
+     * Models loaded by a {@link ModelRepository} are marked clean
+     * automatically.
+     */
+    public void markClean() {
+        savedState = copyState(toMap());
+    }
+
+    private static Map<String, Object> diffState(Map<String, Object> savedState,
+                                                 Map<String, Object> state) {
+        Map<String, Object> changes = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            String key = entry.getKey();
+            if (!"id".equals(key) && !Objects.equal(entry.getValue(), savedState.get(key))) {
+                changes.put(key, entry.getValue());
+            }
+        }
+        for (String key : savedState.keySet()) {
+            if (!state.containsKey(key) && savedState.get(key) != null) {
+                changes.put(key, null);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Copies nested maps and lists too, so that values changed in place
+     * are detected.
+     */
+    private Map<String, Object> copyState(Map<String, ? extends Object> map) {
+        Map<String, Object> copy = schema != null
+                ? new CompactPropertyMap(schema)
+                : new HashMap<String, Object>(map.size());
+        for (Map.Entry<String, ? extends Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new HashMap<String, Object>();
+            for (Map.Entry<String, ? extends Object> entry
+                    : ((Map<String, ? extends Object>) value).entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>();
+            for (Object element : (List<?>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Saves the Model to the server.
+     * @see #save(VoidCallback)
+     * @return A future completed when the model was saved.
+     */
+    public ListenableFuture<Void> saveAsync() {
+        VoidFuture future = new VoidFuture();
+        save(future);
+        return future;
     }
 
     /**
@@ -129,8 +329,21 @@ public class Model extends VirtualObject {
 
             @Override
             public void onSuccess(String response) {
+                if (getRepository() instanceof ModelRepository) {
+                    ((ModelRepository<?>) getRepository()).modelDestroyed(Model.this);
+                }
                 callback.onSuccess();
             }
         });
     }
+
+    /**
+     * Destroys the Model from the server.
+     * @return A future completed when the model was destroyed.
+     */
+    public ListenableFuture<Void> destroyAsync() {
+        VoidFuture future = new VoidFuture();
+        destroy(future);
+        return future;
+    }
 }
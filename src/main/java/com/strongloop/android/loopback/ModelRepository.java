@@ -2,18 +2,37 @@
 
 package com.strongloop.android.loopback;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.strongloop.android.loopback.callbacks.BatchFuture;
 import com.strongloop.android.loopback.callbacks.JsonArrayParser;
 import com.strongloop.android.loopback.callbacks.JsonObjectParser;
 import com.strongloop.android.loopback.callbacks.ListCallback;
+import com.strongloop.android.loopback.callbacks.ListFuture;
 import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.ObjectFuture;
+import com.strongloop.android.loopback.callbacks.TypedCallback;
+import com.strongloop.android.loopback.callbacks.VoidCallback;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
 import com.strongloop.android.remoting.adapters.RestContract;
+import com.strongloop.android.remoting.BeanUtil;
 import com.strongloop.android.remoting.adapters.RestContractItem;
 
 import org.atteo.evo.inflector.English;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A local representative of a single model type on the server, encapsulating
@@ -35,6 +54,8 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
     }
 
     private String nameForRestUrl;
+    private volatile Cache<String, T> identityMap;
+    private volatile PropertySchema schema;
 
     public ModelRepository(String className) {
         this(className, null);
@@ -89,6 +110,8 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
 
         contract.addItem(new RestContractItem("/" + nameForRestUrl, "POST"),
                 className + ".prototype.create");
+        contract.addItem(RestContractItem.createJsonBody("/" + nameForRestUrl, "POST"),
+                className + ".createAll");
         contract.addItem(new RestContractItem("/" + nameForRestUrl + "/:id", "PUT"),
                 className + ".prototype.save");
         contract.addItem(
@@ -102,6 +125,116 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
         return contract;
     }
 
+    /**
+     * Makes this repository keep the models it finds on the server in an
+     * identity map, so that a model with a given id is represented by a
+     * single instance. {@link #createObject(Map)} is not affected, it
+     * always returns a new instance.
+     * <p>
+     * Models found on the server reset the instance already in the map to
+     * the server's state, unless it has unsaved changes: it is then left as
+     * is, and the server's state is returned in a separate instance.
+     * {@link #findById(Object, ObjectCallback)} returns a model from the
+     * map without contacting the server while the model is younger than
+     * <code>timeToLive</code>. Saving a model refreshes its entry,
+     * destroying it removes the entry.
+     * <p>
+     * Models are updated on the thread delivering the response, while
+     * holding the lock of the model. Code using the models of the map on
+     * other threads must hold that lock as well, e.g. with
+     * <code>synchronized (model)</code>.
+     * @param maximumSize The maximum number of models kept in the map. The
+     * least recently used models are evicted first.
+     * @param timeToLive How long a model is served from the map after it
+     * was last loaded or saved.
+     * @param unit The unit of <code>timeToLive</code>.
+     */
+    public void enableIdentityMap(long maximumSize, long timeToLive, TimeUnit unit) {
+        identityMap = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive, unit)
+                .build();
+    }
+
+    /**
+     * Sets whether the models created from now on use compact storage.
+     * <p>
+     * A compact model keeps its dynamic properties in an array whose slots
+     * are described by a property name table shared by all the models of
+     * this repository, instead of a {@link java.util.HashMap} of its own.
+     * It also drops its creation parameters, except for the id, and does
+     * not duplicate the values of bean properties declared by the model
+     * class: {@link Model#get(String)} returns <code>null</code> for them,
+     * use the getter instead. This mode suits repositories holding many
+     * models in memory, e.g. with {@link #enableIdentityMap(long, long,
+     * TimeUnit)}.
+     * @param compactStorage <code>true</code> to use compact storage.
+     */
+    public void setCompactStorage(boolean compactStorage) {
+        if (!compactStorage) {
+            schema = null;
+        } else if (schema == null) {
+            schema = new PropertySchema();
+        }
+    }
+
+    /**
+     * Gets whether the models created by this repository use compact
+     * storage.
+     * @return <code>true</code> if compact storage is used.
+     */
+    public boolean isCompactStorage() {
+        return schema != null;
+    }
+
+    /**
+     * Stops keeping models in an identity map and drops the models already
+     * kept.
+     */
+    public void disableIdentityMap() {
+        identityMap = null;
+    }
+
+    /**
+     * Gets a model from the identity map, without contacting the server.
+     * @param id The model id.
+     * @return The model, or <code>null</code> if the model is not in the
+     * map or the identity map is disabled.
+     * @see #enableIdentityMap(long, long, TimeUnit)
+     */
+    public T getCachedObject(Object id) {
+        Cache<String, T> identityMap = this.identityMap;
+        if (identityMap == null || id == null) {
+            return null;
+        }
+        return identityMap.getIfPresent(String.valueOf(id));
+    }
+
+    /* package private */ void modelSaved(Model model) {
+        Cache<String, T> identityMap = this.identityMap;
+        if (identityMap != null && model.getId() != null
+                && getObjectClass().isInstance(model)) {
+            identityMap.put(String.valueOf(model.getId()),
+                    getObjectClass().cast(model));
+        }
+    }
+
+    /* package private */ void modelDestroyed(Model model) {
+        modelDestroyed(model.getId());
+    }
+
+    private void modelDestroyed(Object id) {
+        Cache<String, T> identityMap = this.identityMap;
+        if (identityMap != null && id != null) {
+            identityMap.invalidate(String.valueOf(id));
+        }
+    }
+
+    @Override
+    protected String getContractKey() {
+        return super.getContractKey() + ":" + nameForRestUrl;
+    }
+
     /**
      * @deprecated Use {link ModelRepository#createObject} instead.
      */
@@ -117,7 +250,11 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
     @Override
     public T createObject(Map<String, ? extends Object> parameters) {
         T model = super.createObject(parameters);
-        model.putAll(parameters);
+        PropertySchema schema = this.schema;
+        if (schema != null) {
+            model.useCompactStorage(schema);
+        }
+        copyParameters(model, parameters);
 
         Object id = parameters.get("id");
         if (id != null) {
@@ -127,17 +264,125 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
         return model;
     }
 
+    /**
+     * Creates a model from the server's response to a find request. With
+     * the identity map enabled, the instance already in the map is reset
+     * to the response and returned instead, unless it has unsaved changes.
+     */
+    /* package private */ T loadObject(Map<String, ? extends Object> parameters) {
+        T loaded = createObject(parameters);
+        Cache<String, T> identityMap = this.identityMap;
+        Object id = parameters.get("id");
+        if (identityMap == null || id == null) {
+            return loaded;
+        }
+
+        String key = String.valueOf(id);
+        T model = identityMap.asMap().putIfAbsent(key, loaded);
+        if (model == null) {
+            return loaded;
+        }
+
+        // Refresh the instance already known, and its time to live. Local
+        // changes not saved yet are not overwritten.
+        synchronized (model) {
+            if (model.isDirty()) {
+                return loaded;
+            }
+            model.resetTo(loaded);
+        }
+        identityMap.put(key, model);
+        return model;
+    }
+
+    private static void copyParameters(Model model,
+                                       Map<String, ? extends Object> parameters) {
+        if (!model.usesCompactStorage()) {
+            model.putAll(parameters);
+            return;
+        }
+        // Properties backed by bean getters are not copied again, nor are
+        // the creation parameters kept beyond the id.
+        Set<String> beanProperties =
+                BeanUtil.getPropertyNames(model.getClass(), false);
+        for (Map.Entry<String, ? extends Object> entry : parameters.entrySet()) {
+            if (!beanProperties.contains(entry.getKey())) {
+                model.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Object id = parameters.get("id");
+        model.setCreationParameters(id != null
+                ? Collections.singletonMap("id", id) : null);
+    }
+
     /**
      * Finds and downloads a single instance of this model type on and from the
-     * server with the given id.
+     * server with the given id. When the identity map is enabled, a model
+     * still fresh in the map is returned without contacting the server.
      * @param id The id to search for.
      * @param callback The callback to be executed when finished.
      */
     public void findById(Object id, final ObjectCallback<T> callback) {
+        findById(id, null, callback);
+    }
+
+    /**
+     * Finds and downloads a single instance of this model type on and from the
+     * server with the given id, with settings specific to this request.
+     * @param id The id to search for.
+     * @param options The request options, e.g. its timeout.
+     * @param callback The callback to be executed when finished.
+     */
+    public void findById(Object id, RequestOptions options,
+                         final ObjectCallback<T> callback) {
+        T cached = getCachedObject(id);
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("id", id);
-        invokeStaticMethod("findById", params,
-                new JsonObjectParser<T>(this, callback));
+        invokeStaticMethod("findById", params, options,
+                new JsonObjectParser<T>(this, callback) {
+                    @Override
+                    protected T createObject(Map<String, ? extends Object> parameters) {
+                        return loadObject(parameters);
+                    }
+                });
+    }
+
+    /**
+     * Finds and downloads a single instance of this model type on and from the
+     * server with the given id, blocking the calling thread until done.
+     * @param id The id to search for.
+     * @return The model, or <code>null</code> if it was not found.
+     * @throws LoopbackException if the request failed.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public T findById(Object id) throws LoopbackException, InterruptedException {
+        return findById(id, 0);
+    }
+
+    /**
+     * Finds and downloads a single instance of this model type on and from the
+     * server with the given id, blocking the calling thread until done.
+     * @param id The id to search for.
+     * @param timeout How long the request may take, in milliseconds, or
+     * <code>0</code> to only apply the timeouts of the adapter.
+     * @return The model, or <code>null</code> if it was not found.
+     * @throws LoopbackException if the request failed. When it timed out,
+     * the cause is a
+     * {@link com.strongloop.android.remoting.adapters.RequestTimeoutException}.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public T findById(Object id, long timeout)
+            throws LoopbackException, InterruptedException {
+        ObjectFuture<T> future = new ObjectFuture<T>();
+        findById(id, Blocking.options(timeout, future), future);
+        return Blocking.get(future);
     }
 
     /**
@@ -145,7 +390,357 @@ public class ModelRepository<T extends Model> extends RestRepository<T> {
      * @param callback The callback to be executed when finished.
      */
     public void findAll(final ListCallback<T> callback) {
-        invokeStaticMethod("all", null,
-                new JsonArrayParser<T>(this, callback));
+        findAll(null, null, callback);
+    }
+
+    /**
+     * Finds and downloads the models of this type matching
+     * <code>filter</code>. The filter is applied by the server, so only the
+     * matching models and the requested properties are downloaded.
+     * @param filter The filter to apply, or <code>null</code> to find all
+     * models.
+     * @param callback The callback to be executed when finished.
+     */
+    public void findAll(Filter filter, final ListCallback<T> callback) {
+        findAll(filter, null, callback);
+    }
+
+    /**
+     * Finds and downloads the models of this type matching
+     * <code>filter</code>, with settings specific to this request.
+     * @param filter The filter to apply, or <code>null</code> to find all
+     * models.
+     * @param options The request options, e.g. its timeout.
+     * @param callback The callback to be executed when finished.
+     */
+    public void findAll(Filter filter, RequestOptions options,
+                        final ListCallback<T> callback) {
+        Map<String, Object> params = null;
+        if (filter != null) {
+            params = new HashMap<String, Object>();
+            params.put("filter", filter.toMap());
+        }
+        invokeStaticMethod("all", params, options,
+                new JsonArrayParser<T>(this, callback) {
+                    @Override
+                    protected T createObject(Map<String, ? extends Object> parameters) {
+                        return loadObject(parameters);
+                    }
+                });
+    }
+
+    /**
+     * Finds and downloads all models of this type on and from the server,
+     * blocking the calling thread until done.
+     * @return The list of models.
+     * @throws LoopbackException if the request failed.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public List<T> findAll() throws LoopbackException, InterruptedException {
+        return findAll(null, 0);
+    }
+
+    /**
+     * Finds and downloads the models of this type matching
+     * <code>filter</code>, blocking the calling thread until done.
+     * @param filter The filter to apply, or <code>null</code> to find all
+     * models.
+     * @return The list of models.
+     * @throws LoopbackException if the request failed.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public List<T> findAll(Filter filter)
+            throws LoopbackException, InterruptedException {
+        return findAll(filter, 0);
+    }
+
+    /**
+     * Finds and downloads the models of this type matching
+     * <code>filter</code>, blocking the calling thread until done.
+     * @param filter The filter to apply, or <code>null</code> to find all
+     * models.
+     * @param timeout How long the request may take, in milliseconds, or
+     * <code>0</code> to only apply the timeouts of the adapter.
+     * @return The list of models.
+     * @throws LoopbackException if the request failed. When it timed out,
+     * the cause is a
+     * {@link com.strongloop.android.remoting.adapters.RequestTimeoutException}.
+     * @throws InterruptedException if the thread was interrupted while
+     * waiting.
+     */
+    public List<T> findAll(Filter filter, long timeout)
+            throws LoopbackException, InterruptedException {
+        ListFuture<T> future = new ListFuture<T>();
+        findAll(filter, Blocking.options(timeout, future), future);
+        return Blocking.get(future);
+    }
+
+    /**
+     * Creates many models on the server, sending up to
+     * <code>batchSize</code> models per request as a JSON array. Up to
+     * <code>concurrency</code> requests are in flight at once. The ids
+     * assigned by the server are set on the models.
+     * <p>
+     * The callback receives the outcome of every model once all requests
+     * completed. When a request fails, all the models it carried are
+     * reported as failed, although the server may have created some of
+     * them.
+     * @param models The models to create.
+     * @param batchSize The maximum number of models per request.
+     * @param concurrency The maximum number of requests in flight.
+     * @param callback The callback to be executed when finished.
+     */
+    public void createAll(List<T> models, int batchSize, int concurrency,
+                          TypedCallback<BatchResult<T>> callback) {
+        new BatchRunner<T>(models, BatchRunner.partition(models.size(), batchSize),
+                concurrency, callback) {
+            @Override
+            protected void send(List<T> batch) {
+                sendCreate(batch, this);
+            }
+        }.start();
+    }
+
+    /**
+     * Saves many models to the server. New models are created in batches
+     * as by {@link #createAll(List, int, int, TypedCallback)}. LoopBack has
+     * no bulk update, so models that already have an id are saved one
+     * request each, within the same concurrency limit.
+     * @param models The models to save.
+     * @param batchSize The maximum number of new models per request.
+     * @param concurrency The maximum number of requests in flight.
+     * @param callback The callback to be executed when finished.
+     */
+    public void saveAll(List<T> models, int batchSize, int concurrency,
+                        TypedCallback<BatchResult<T>> callback) {
+        List<Integer> created = new ArrayList<Integer>();
+        List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        for (int i = 0; i < models.size(); i++) {
+            if (models.get(i).getId() == null) {
+                created.add(i);
+            } else {
+                batches.add(Collections.singletonList(i));
+            }
+        }
+        batches.addAll(0, Lists.partition(created, batchSize));
+
+        new BatchRunner<T>(models, batches, concurrency, callback) {
+            @Override
+            protected void send(final List<T> batch) {
+                if (batch.get(0).getId() == null) {
+                    sendCreate(batch, this);
+                    return;
+                }
+                final BatchRunner<T> runner = this;
+                batch.get(0).save(new VoidCallback() {
+                    @Override
+                    public void onSuccess() {
+                        runner.batchCompleted(batch, null);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        runner.batchCompleted(batch, t);
+                    }
+                });
+            }
+        }.start();
+    }
+
+    /**
+     * Destroys the models with the given ids on the server. LoopBack has
+     * no bulk delete by id, so each model is destroyed with its own
+     * request, with up to <code>concurrency</code> requests in flight.
+     * @param ids The ids of the models to destroy.
+     * @param concurrency The maximum number of requests in flight.
+     * @param callback The callback to be executed when finished.
+     */
+    public <I> void destroyAll(List<I> ids, int concurrency,
+                               TypedCallback<BatchResult<I>> callback) {
+        new BatchRunner<I>(ids, BatchRunner.partition(ids.size(), 1),
+                concurrency, callback) {
+            @Override
+            protected void send(final List<I> batch) {
+                final BatchRunner<I> runner = this;
+                final Object id = batch.get(0);
+                Map<String, Object> params = new HashMap<String, Object>();
+                params.put("id", id);
+                getAdapter().invokeInstanceMethod(getClassName() + ".prototype.remove",
+                        params, null, new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                modelDestroyed(id);
+                                runner.batchCompleted(batch, null);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                runner.batchCompleted(batch, t);
+                            }
+                        });
+            }
+        }.start();
+    }
+
+    /**
+     * Creates many models on the server.
+     * @see #createAll(List, int, int, TypedCallback)
+     * @return A future completed with the outcome of every model.
+     */
+    public ListenableFuture<BatchResult<T>> createAllAsync(List<T> models,
+                                                          int batchSize,
+                                                          int concurrency) {
+        BatchFuture<T> future = new BatchFuture<T>();
+        createAll(models, batchSize, concurrency, future);
+        return future;
+    }
+
+    /**
+     * Saves many models to the server.
+     * @see #saveAll(List, int, int, TypedCallback)
+     * @return A future completed with the outcome of every model.
+     */
+    public ListenableFuture<BatchResult<T>> saveAllAsync(List<T> models,
+                                                        int batchSize,
+                                                        int concurrency) {
+        BatchFuture<T> future = new BatchFuture<T>();
+        saveAll(models, batchSize, concurrency, future);
+        return future;
+    }
+
+    /**
+     * Destroys the models with the given ids on the server.
+     * @see #destroyAll(List, int, TypedCallback)
+     * @return A future completed with the outcome of every id.
+     */
+    public <I> ListenableFuture<BatchResult<I>> destroyAllAsync(List<I> ids,
+                                                               int concurrency) {
+        BatchFuture<I> future = new BatchFuture<I>();
+        destroyAll(ids, concurrency, future);
+        return future;
+    }
+
+    private void sendCreate(final List<T> batch, final BatchRunner<T> runner) {
+        List<Map<String, ? extends Object>> data =
+                new ArrayList<Map<String, ? extends Object>>(batch.size());
+        for (T model : batch) {
+            data.add(model.toMap());
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("data", data);
+
+        invokeStaticMethod("createAll", params, new Adapter.JsonArrayCallback() {
+            @Override
+            public void onSuccess(JSONArray response) {
+                if (response == null || response.length() != batch.size()) {
+                    runner.batchCompleted(batch, new LoopbackException(
+                            "Expected " + batch.size() + " created models"));
+                    return;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    JSONObject created = response.optJSONObject(i);
+                    Object id = created != null ? created.opt("id") : null;
+                    if (id != null) {
+                        T model = batch.get(i);
+                        model.setId(id);
+                        model.markClean();
+                        modelSaved(model);
+                    }
+                }
+                runner.batchCompleted(batch, null);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                runner.batchCompleted(batch, t);
+            }
+        });
+    }
+
+    /**
+     * Iterates over the models of this type matching <code>filter</code>,
+     * downloading them one page at a time as the iteration proceeds. The
+     * next page is requested while the current one is consumed, and only
+     * these two pages are kept in memory:
+     * <pre>
+     * {@code
+     * for (Widget widget : repository.iterate(new Filter().order("id"), 500)) {
+     *     process(widget);
+     * }
+     * }
+     * </pre>
+     * Pages are requested with <code>skip</code> and <code>limit</code>, so
+     * the filter should sort the models on a unique property to get a
+     * stable order. The iterators block while waiting for a page, and throw
+     * {@link com.google.common.util.concurrent.UncheckedExecutionException}
+     * if a page cannot be downloaded.
+     * @param filter The filter to apply, or <code>null</code> to iterate
+     * over all models. Its <code>skip</code> and <code>limit</code> bound
+     * the whole iteration.
+     * @param pageSize The number of models downloaded per request.
+     * @return An {@link Iterable} whose iterators each walk the models
+     * from the start.
+     */
+    public Iterable<T> iterate(Filter filter, final int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        final Filter query = filter != null ? filter.copy() : null;
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new PagingIterator<T>(ModelRepository.this, query, pageSize);
+            }
+        };
+    }
+
+    /**
+     * Finds and downloads a single instance of this model type on and from the
+     * server with the given id.
+     * <p>
+     * Unlike {@link #findById(Object, ObjectCallback)}, the result is returned
+     * as a future, which makes it easy to run many lookups in parallel:
+     * <pre>
+     * {@code
+     * List<ListenableFuture<Widget>> lookups = new ArrayList<ListenableFuture<Widget>>();
+     * for (Object id : ids) {
+     *     lookups.add(repository.findByIdAsync(id));
+     * }
+     * ListenableFuture<List<Widget>> all = Futures.allAsList(lookups);
+     * }
+     * </pre>
+     * @param id The id to search for.
+     * @return A future completed with the model, or with <code>null</code>
+     * if it was not found.
+     */
+    public ListenableFuture<T> findByIdAsync(Object id) {
+        ObjectFuture<T> future = new ObjectFuture<T>();
+        findById(id, future);
+        return future;
+    }
+
+    /**
+     * Finds and downloads all models of this type on and from the server.
+     * @return A future completed with the list of models.
+     */
+    public ListenableFuture<List<T>> findAllAsync() {
+        ListFuture<T> future = new ListFuture<T>();
+        findAll(future);
+        return future;
+    }
+
+    /**
+     * Finds and downloads the models of this type matching
+     * <code>filter</code>.
+     * @param filter The filter to apply, or <code>null</code> to find all
+     * models.
+     * @return A future completed with the list of models.
+     */
+    public ListenableFuture<List<T>> findAllAsync(Filter filter) {
+        ListFuture<T> future = new ListFuture<T>();
+        findAll(filter, future);
+        return future;
     }
 }
@@ -0,0 +1,99 @@
+package com.strongloop.android.loopback;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Iterates over the models matching a {@link Filter}, downloading them one
+ * page at a time. The next page is requested as soon as the current one
+ * arrives, so that it downloads while the current page is consumed.
+ */
+class PagingIterator<T extends Model> implements Iterator<T> {
+
+    private final ModelRepository<T> repository;
+    private final Filter filter;
+    private final int pageSize;
+    private int nextSkip;
+    private int remaining;
+
+    private List<T> page = Collections.emptyList();
+    private int index;
+    private ListenableFuture<List<T>> nextPage;
+    private int nextPageSize;
+
+    PagingIterator(ModelRepository<T> repository, Filter filter, int pageSize) {
+        this.repository = repository;
+        this.filter = filter != null ? filter.copy() : new Filter();
+        this.pageSize = pageSize;
+        this.nextSkip = this.filter.getSkip() != null ? this.filter.getSkip() : 0;
+        this.remaining = this.filter.getLimit() != null
+                ? this.filter.getLimit() : Integer.MAX_VALUE;
+        fetchNextPage();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (nextPage == null) {
+                return false;
+            }
+            List<T> fetched = await(nextPage);
+            if (fetched.size() < nextPageSize) {
+                // A short page is the last one.
+                nextPage = null;
+            } else {
+                fetchNextPage();
+            }
+            // The consumed page is released here, the next one is already
+            // being fetched.
+            page = fetched;
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void fetchNextPage() {
+        if (remaining <= 0) {
+            nextPage = null;
+            return;
+        }
+        nextPageSize = Math.min(pageSize, remaining);
+        Filter pageFilter = filter.copy().skip(nextSkip).limit(nextPageSize);
+        nextSkip += nextPageSize;
+        if (remaining != Integer.MAX_VALUE) {
+            remaining -= nextPageSize;
+        }
+        nextPage = repository.findAllAsync(pageFilter);
+    }
+
+    private static <T> List<T> await(ListenableFuture<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new UncheckedExecutionException(e);
+        } catch (ExecutionException e) {
+            throw new UncheckedExecutionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.strongloop.android.loopback;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The property names seen by the models of a {@link ModelRepository} in
+ * compact storage mode, each with a fixed slot in the models' value
+ * arrays. Names are only ever added, so that a slot never changes.
+ */
+class PropertySchema {
+
+    private final ConcurrentMap<String, Integer> slots =
+            new ConcurrentHashMap<String, Integer>();
+    private volatile String[] names = new String[0];
+
+    /**
+     * @return the slot of <code>name</code>, or <code>-1</code> if no model
+     * has the property.
+     */
+    int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    int addSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (this) {
+            slot = slots.get(name);
+            if (slot == null) {
+                String[] names = Arrays.copyOf(this.names, this.names.length + 1);
+                slot = names.length - 1;
+                names[slot] = name;
+                // Publish the name before the slot can be looked up.
+                this.names = names;
+                slots.put(name, slot);
+            }
+            return slot;
+        }
+    }
+
+    String nameAt(int slot) {
+        return names[slot];
+    }
+}
@@ -0,0 +1,295 @@
+package com.strongloop.android.loopback;
+
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.SettableFuture;
+import com.strongloop.android.loopback.callbacks.VoidCallback;
+import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.HttpResponseException;
+import com.strongloop.android.remoting.adapters.RequestOptions;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Downloads a {@link File} as byte ranges fetched concurrently, each
+ * written at its offset in the local file.
+ * <p>
+ * The first range doubles as a probe: its <code>Content-Range</code>
+ * header tells the total size, which is used to preallocate the local file
+ * and split the rest into ranges. A server that ignores <code>Range</code>
+ * answers the probe with the whole content, which is then simply written
+ * as it arrives.
+ */
+class RangedDownload {
+
+    private final File file;
+    private final Map<String, ? extends Object> parameters;
+    private final java.io.File localFile;
+    private final int concurrency;
+    private final long chunkSize;
+    private final VoidCallback callback;
+
+    // Guarded by this.
+    private FileChannel channel;
+    private long totalLength;
+    private long nextOffset;
+    private int pending;
+    private boolean finished;
+    // Cancelling one aborts its range request, guarded by this.
+    private final List<SettableFuture<Void>> inFlight =
+            new ArrayList<SettableFuture<Void>>();
+
+    RangedDownload(File file, Map<String, ? extends Object> parameters,
+                   java.io.File localFile, int concurrency, long chunkSize,
+                   VoidCallback callback) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.file = file;
+        this.parameters = parameters;
+        this.localFile = localFile;
+        this.concurrency = concurrency;
+        this.chunkSize = chunkSize;
+        this.callback = callback;
+    }
+
+    void start() {
+        synchronized (this) {
+            pending = 1;
+        }
+        requestRange(0, chunkSize - 1, true);
+    }
+
+    private void requestRange(long start, long end, boolean probe) {
+        SettableFuture<Void> request = SettableFuture.create();
+        synchronized (this) {
+            inFlight.add(request);
+        }
+        RequestOptions options = new RequestOptions();
+        options.setHeader("Range", "bytes=" + start + "-" + end);
+        options.setCancellation(request);
+        file.invokeMethod("download", parameters, options,
+                new RangeCallback(request, start, probe));
+    }
+
+    /**
+     * Called when the probe reports the total size of the file.
+     */
+    private void startRanges(long probeEnd, long length) throws IOException {
+        synchronized (this) {
+            if (finished) {
+                throw new IOException("Download aborted");
+            }
+            openChannel(length);
+            totalLength = length;
+            nextOffset = probeEnd + 1;
+        }
+        for (int i = 1; i < concurrency; i++) {
+            if (!requestNextRange()) {
+                break;
+            }
+        }
+    }
+
+    private boolean requestNextRange() {
+        long start;
+        long end;
+        synchronized (this) {
+            if (finished || nextOffset >= totalLength) {
+                return false;
+            }
+            start = nextOffset;
+            end = Math.min(start + chunkSize, totalLength) - 1;
+            nextOffset = end + 1;
+            pending++;
+        }
+        requestRange(start, end, false);
+        return true;
+    }
+
+    private void rangeCompleted(SettableFuture<Void> request) {
+        boolean done;
+        synchronized (this) {
+            inFlight.remove(request);
+            if (finished) {
+                return;
+            }
+            pending--;
+            done = pending == 0 && nextOffset >= totalLength;
+            if (done) {
+                finished = true;
+            }
+        }
+        if (!done) {
+            requestNextRange();
+            return;
+        }
+        try {
+            closeChannel();
+        } catch (IOException e) {
+            localFile.delete();
+            callback.onError(e);
+            return;
+        }
+        callback.onSuccess();
+    }
+
+    private void fail(Throwable t) {
+        List<SettableFuture<Void>> requests;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            requests = new ArrayList<SettableFuture<Void>>(inFlight);
+            inFlight.clear();
+        }
+        // Abort the other ranges, their callbacks then find the download
+        // finished.
+        for (SettableFuture<Void> request : requests) {
+            request.cancel(false);
+        }
+        try {
+            closeChannel();
+        } catch (IOException ignored) {
+        }
+        localFile.delete();
+        callback.onError(t);
+    }
+
+    private synchronized void openChannel(long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(localFile, "rw");
+        try {
+            raf.setLength(0);
+            if (length > 0) {
+                raf.setLength(length);
+            }
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        channel = raf.getChannel();
+    }
+
+    private synchronized FileChannel getChannel() {
+        return channel;
+    }
+
+    private synchronized void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private static long[] parseContentRange(String contentRange) throws IOException {
+        // bytes <start>-<end>/<length>
+        try {
+            if (contentRange != null && contentRange.startsWith("bytes ")) {
+                int dash = contentRange.indexOf('-');
+                int slash = contentRange.indexOf('/');
+                return new long[]{
+                        Long.parseLong(contentRange.substring(6, dash).trim()),
+                        Long.parseLong(contentRange.substring(dash + 1, slash).trim()),
+                        Long.parseLong(contentRange.substring(slash + 1).trim())};
+            }
+        } catch (RuntimeException e) {
+            // Reported below.
+        }
+        throw new IOException("Invalid Content-Range: " + contentRange);
+    }
+
+    private class RangeCallback implements Adapter.BinaryStreamCallback {
+        private final SettableFuture<Void> request;
+        private final long start;
+        private final boolean probe;
+        private long end = -1;
+        private long received;
+
+        RangeCallback(SettableFuture<Void> request, long start, boolean probe) {
+            this.request = request;
+            this.start = start;
+            this.probe = probe;
+        }
+
+        @Override
+        public void onStart(int statusCode, Map<String, String> headers)
+                throws IOException {
+            if (statusCode == 206) {
+                long[] range = parseContentRange(headers.get("Content-Range"));
+                if (range[0] != start) {
+                    throw new IOException("Unexpected Content-Range: "
+                            + headers.get("Content-Range"));
+                }
+                end = range[1];
+                if (probe) {
+                    startRanges(end, range[2]);
+                }
+            } else if (probe) {
+                // The server ignored the Range header and sends everything.
+                String contentLength = headers.get("Content-Length");
+                openChannel(contentLength != null ? Long.parseLong(contentLength) : 0);
+                synchronized (RangedDownload.this) {
+                    totalLength = 0;
+                }
+            } else {
+                throw new IOException("Expected a partial response, got "
+                        + statusCode);
+            }
+        }
+
+        @Override
+        public void onBodyPart(ByteBuffer bodyPart) throws IOException {
+            FileChannel channel = getChannel();
+            while (bodyPart.hasRemaining()) {
+                received += channel.write(bodyPart, start + received);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (end >= 0 && received != end - start + 1) {
+                fail(new IOException("Range " + start + "-" + end
+                        + " ended after " + received + " bytes"));
+                return;
+            }
+            rangeCompleted(request);
+        }
+
+        @Override
+        public void onSuccess(byte[] body, String contentType) {
+            // The adapter does not stream, nor support request options.
+            try {
+                Files.write(body, localFile);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            rangeCompleted(request);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (probe && t instanceof HttpResponseException
+                    && ((HttpResponseException) t).getStatusCode() == 416) {
+                // Range Not Satisfiable, the file is empty.
+                try {
+                    openChannel(0);
+                } catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+                rangeCompleted(request);
+                return;
+            }
+            fail(t);
+        }
+    }
+}
@@ -2,6 +2,14 @@
 
 package com.strongloop.android.loopback;
 
+import com.strongloop.android.remoting.adapters.RestAdapterConfig;
+import com.strongloop.android.remoting.adapters.RestContract;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * An extension to the vanilla
  * {@link com.strongloop.android.remoting.adapters.RestAdapter}
@@ -15,12 +23,32 @@ public class RestAdapter
     public static final String PROPERTY_ACCESS_TOKEN = "accessToken";
 
     private String accessToken;
+    private final Set<String> registeredContracts =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentMap<Class<?>, RestRepository<?>> repositories =
+            new ConcurrentHashMap<Class<?>, RestRepository<?>>();
+    private final ConcurrentMap<String, ModelRepository<Model>> modelRepositories =
+            new ConcurrentHashMap<String, ModelRepository<Model>>();
+    private final ConcurrentMap<String, FileRepository> fileRepositories =
+            new ConcurrentHashMap<String, FileRepository>();
 
     public RestAdapter(String url) {
         super(url);
         setAccessToken(loadAccessToken());
     }
 
+    /**
+     * Creates a new adapter connected to <code>url</code>, using an HTTP
+     * client tuned by <code>config</code>.
+     *
+     * @param url    The URL to connect to.
+     * @param config The HTTP client configuration.
+     */
+    public RestAdapter(String url, RestAdapterConfig config) {
+        super(url, config);
+        setAccessToken(loadAccessToken());
+    }
+
     public void setAccessToken(String accessToken) {
         saveAccessToken(accessToken);
         getClient().addHeader("Authorization", accessToken);
@@ -75,7 +103,7 @@ public class RestAdapter
      *                        The class must have a public no-argument constructor.
      * @return A new repository instance.
      */
-    public <U extends RestRepository> U createRepository(
+    public <U extends RestRepository<?>> U createRepository(
             Class<U> repositoryClass) {
         U repository = null;
         try {
@@ -90,9 +118,92 @@ public class RestAdapter
         return repository;
     }
 
+    /**
+     * Gets the shared {@link ModelRepository} representing the named model
+     * type, creating it on first use.
+     *
+     * @param name The model name.
+     * @return The repository instance.
+     */
+    public ModelRepository<Model> getRepository(String name) {
+        ModelRepository<Model> repository = modelRepositories.get(name);
+        if (repository == null) {
+            repository = createRepository(name);
+            ModelRepository<Model> existing =
+                    modelRepositories.putIfAbsent(name, repository);
+            if (existing != null) {
+                repository = existing;
+            }
+        }
+        return repository;
+    }
 
-    private void attachModelRepository(RestRepository repository) {
-        getContract().addItemsFromContract(repository.createContract());
+    /**
+     * Gets the shared instance of the given repository class, creating it
+     * on first use.
+     *
+     * @param repositoryClass A subclass of {@link RestRepository} to use.
+     *                        The class must have a public no-argument constructor.
+     * @return The repository instance.
+     */
+    public <U extends RestRepository<?>> U getRepository(Class<U> repositoryClass) {
+        RestRepository<?> repository = repositories.get(repositoryClass);
+        if (repository == null) {
+            repository = createRepository(repositoryClass);
+            RestRepository<?> existing =
+                    repositories.putIfAbsent(repositoryClass, repository);
+            if (existing != null) {
+                repository = existing;
+            }
+        }
+        return repositoryClass.cast(repository);
+    }
+
+    /**
+     * Gets the shared {@link FileRepository} for files stored in
+     * <code>container</code>, creating it on first use.
+     *
+     * @param container The container.
+     * @return The repository instance.
+     */
+    public FileRepository getFileRepository(Container container) {
+        String name = container.getName();
+        FileRepository repository = fileRepositories.get(name);
+        if (repository == null) {
+            repository = createRepository(FileRepository.class);
+            repository.setContainer(container);
+            FileRepository existing =
+                    fileRepositories.putIfAbsent(name, repository);
+            if (existing != null) {
+                repository = existing;
+            }
+        }
+        return repository;
+    }
+
+    @Override
+    public void setContract(RestContract contract) {
+        synchronized (registeredContracts) {
+            super.setContract(contract);
+            registeredContracts.clear();
+            repositories.clear();
+            modelRepositories.clear();
+            fileRepositories.clear();
+        }
+    }
+
+    /* package private */ void attachModelRepository(RestRepository<?> repository) {
+        String key = repository.getContractKey();
+        if (!registeredContracts.contains(key)) {
+            synchronized (registeredContracts) {
+                // The key is published only after the routes, so a thread
+                // that skips this block never sees a half-registered model.
+                if (!registeredContracts.contains(key)) {
+                    getContract().addItemsFromContract(repository.createContract());
+                    registeredContracts.add(key);
+                }
+            }
+        }
         repository.setAdapter(this);
     }
 
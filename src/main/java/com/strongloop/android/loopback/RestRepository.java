@@ -17,6 +17,17 @@ public class RestRepository<T extends VirtualObject> extends Repository<T> {
         return new RestContract();
     }
 
+    /**
+     * Gets a key identifying the contract returned by
+     * {@link #createContract()}. Repositories with equal keys must create
+     * equal contracts, an adapter registers each key only once.
+     *
+     * @return The contract key.
+     */
+    protected String getContractKey() {
+        return getClass().getName() + ":" + getClassName();
+    }
+
     public RestAdapter getRestAdapter() {
         return (RestAdapter) getAdapter();
     }
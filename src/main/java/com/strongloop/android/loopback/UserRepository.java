@@ -1,9 +1,14 @@
 package com.strongloop.android.loopback;
 
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.ObjectFuture;
 import com.strongloop.android.loopback.callbacks.VoidCallback;
+import com.strongloop.android.loopback.callbacks.VoidFuture;
 import com.strongloop.android.remoting.JsonUtil;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
 import com.strongloop.android.remoting.adapters.RestContract;
 import com.strongloop.android.remoting.adapters.RestContractItem;
 import org.json.JSONObject;
@@ -120,6 +125,18 @@ public class UserRepository<U extends User> extends ModelRepository<U> {
         });
     }
 
+    /**
+     * Fetch the data of the currently logged in user.
+     * @see #findCurrentUser(ObjectCallback)
+     * @return A future completed with the current user, or with
+     * <code>null</code> when no user is logged in.
+     */
+    public ListenableFuture<U> findCurrentUserAsync() {
+        ObjectFuture<U> future = new ObjectFuture<U>();
+        findCurrentUser(future);
+        return future;
+    }
+
     /**
      * Get the cached value of the currently logged in user.
      * The value is updated by {@link #findCurrentUser(ObjectCallback)},
@@ -216,12 +233,26 @@ public class UserRepository<U extends User> extends ModelRepository<U> {
      */
     public void loginUser(String email, String password,
             final LoginCallback<U> callback) {
+        loginUser(email, password, null, callback);
+    }
+
+    /**
+     * Login a user given an email and password, with settings specific to
+     * this request, e.g. a deadline.
+     * @see #loginUser(String, String, LoginCallback)
+     * @param email - user email
+     * @param password - user password
+     * @param options - the request options, or <code>null</code>
+     * @param callback - success/error callback
+     */
+    public void loginUser(String email, String password,
+            RequestOptions options, final LoginCallback<U> callback) {
 
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("email",  email);
         params.put("password",  password);
 
-        invokeStaticMethod("login", params,
+        invokeStaticMethod("login", params, options,
                 new Adapter.JsonObjectCallback() {
 
                     @Override
@@ -247,6 +278,46 @@ public class UserRepository<U extends User> extends ModelRepository<U> {
                 });
     }
 
+    /**
+     * Login a user given an email and password.
+     * @see #loginUser(String, String, LoginCallback)
+     * @param email - user email
+     * @param password - user password
+     * @return A future completed with the access token. The logged in user
+     * is available via {@link #getCachedCurrentUser()}.
+     */
+    public ListenableFuture<AccessToken> loginUserAsync(String email,
+                                                        String password) {
+        LoginFuture<U> future = new LoginFuture<U>();
+        loginUser(email, password, future);
+        return future;
+    }
+
+    /**
+     * Logs the current user out of the server and removes the access
+     * token from the system.
+     * @return A future completed when the user was logged out.
+     */
+    public ListenableFuture<Void> logoutAsync() {
+        VoidFuture future = new VoidFuture();
+        logout(future);
+        return future;
+    }
+
+    private static class LoginFuture<U> extends AbstractFuture<AccessToken>
+            implements LoginCallback<U> {
+
+        @Override
+        public void onSuccess(AccessToken token, U currentUser) {
+            set(token);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            setException(t);
+        }
+    }
+
     /**
      * Logs the current user out of the server and removes the access
      * token from the system.
@@ -0,0 +1,23 @@
+package com.strongloop.android.loopback.callbacks;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.strongloop.android.loopback.BatchResult;
+
+/**
+ * A callback of bulk operations that is also a
+ * {@link com.google.common.util.concurrent.ListenableFuture}, completed
+ * when all items were processed.
+ */
+public class BatchFuture<E> extends AbstractFuture<BatchResult<E>>
+        implements TypedCallback<BatchResult<E>> {
+
+    @Override
+    public void onSuccess(BatchResult<E> result) {
+        set(result);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        setException(t);
+    }
+}
@@ -6,11 +6,16 @@ import com.strongloop.android.remoting.VirtualObject;
 import com.strongloop.android.remoting.adapters.Adapter;
 
 import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONTokener;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-public class JsonArrayParser<T extends VirtualObject> extends Adapter.JsonArrayCallback {
+public class JsonArrayParser<T extends VirtualObject> extends Adapter.JsonArrayCallback
+        implements Adapter.StreamCallback {
     private final Repository<T> repository;
     private final ListCallback<T> callback;
 
@@ -24,13 +29,60 @@ public class JsonArrayParser<T extends VirtualObject> extends Adapter.JsonArrayC
         List<T> list = new ArrayList<T>();
         if (response != null) {
             for (int i = 0; i < response.length(); i++) {
-                list.add(repository.createObject(JsonUtil.fromJson(
-                        response.optJSONObject(i))));
+                list.add(JsonObjectParser.loaded(createObject(JsonUtil.fromJson(
+                        response.optJSONObject(i)))));
             }
         }
         callback.onSuccess(list);
     }
 
+    /**
+     * Decodes the response one array element at a time, so that only the
+     * element being converted is held as a {@link Map}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onSuccess(Reader response) {
+        List<T> list = new ArrayList<T>();
+        try {
+            JSONTokener tokener = new JSONTokener(response);
+            char c = tokener.nextClean();
+            if (c == '[') {
+                if (tokener.nextClean() != ']') {
+                    tokener.back();
+                    do {
+                        Object element = JsonUtil.readJson(tokener);
+                        list.add(JsonObjectParser.loaded(createObject(element instanceof Map
+                                ? (Map<String, Object>) element
+                                : null)));
+                        c = tokener.nextClean();
+                    } while (c == ',');
+
+                    if (c != ']') {
+                        throw tokener.syntaxError("Expected a ',' or ']'");
+                    }
+                }
+            } else {
+                tokener.back();
+                Object value = JsonUtil.readJson(tokener);
+                if (value != null) {
+                    throw new JSONException("Expecting a JSON array: " + value);
+                }
+            }
+        } catch (JSONException e) {
+            onError(e);
+            return;
+        }
+        callback.onSuccess(list);
+    }
+
+    /**
+     * Creates the object described by an element of the response.
+     */
+    protected T createObject(Map<String, ? extends Object> parameters) {
+        return repository.createObject(parameters);
+    }
+
     @Override
     public void onError(Throwable throwable) {
         callback.onError(throwable);
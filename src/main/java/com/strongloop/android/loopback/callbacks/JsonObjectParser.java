@@ -1,14 +1,20 @@
 package com.strongloop.android.loopback.callbacks;
 
+import com.strongloop.android.loopback.Model;
 import com.strongloop.android.remoting.JsonUtil;
 import com.strongloop.android.remoting.Repository;
 import com.strongloop.android.remoting.VirtualObject;
 import com.strongloop.android.remoting.adapters.Adapter;
 
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Reader;
+import java.util.Map;
 
 public class JsonObjectParser<T extends VirtualObject>
-        extends Adapter.JsonObjectCallback {
+        extends Adapter.JsonObjectCallback implements Adapter.StreamCallback {
 
     private final Repository<T> repository;
     private final ObjectCallback<T> callback;
@@ -27,7 +33,53 @@ public class JsonObjectParser<T extends VirtualObject>
         }
 
         callback.onSuccess(
-                repository.createObject(JsonUtil.fromJson(response)));
+                loaded(createObject(JsonUtil.fromJson(response))));
+    }
+
+    /**
+     * Decodes the response straight into the map used to create the object.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onSuccess(Reader response) {
+        Object value;
+        try {
+            value = JsonUtil.readJson(new JSONTokener(response));
+        } catch (JSONException e) {
+            onError(e);
+            return;
+        }
+
+        if (value == null) {
+            // Not found
+            callback.onSuccess(null);
+        } else if (value instanceof Map) {
+            callback.onSuccess(
+                    loaded(createObject((Map<String, Object>) value)));
+        } else {
+            onError(new JSONException("Expecting a JSON object: " + value));
+        }
+    }
+
+    /**
+     * Creates the object described by the response.
+     */
+    protected T createObject(Map<String, ? extends Object> parameters) {
+        return repository.createObject(parameters);
+    }
+
+    /**
+     * Marks a model created from a server response as clean, so that only
+     * later changes are saved.
+     */
+    static <T extends VirtualObject> T loaded(T object) {
+        if (object instanceof Model) {
+            // Models of an identity map are shared with other threads.
+            synchronized (object) {
+                ((Model) object).markClean();
+            }
+        }
+        return object;
     }
 
     @Override
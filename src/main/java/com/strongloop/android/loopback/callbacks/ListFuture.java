@@ -0,0 +1,25 @@
+package com.strongloop.android.loopback.callbacks;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.strongloop.android.remoting.VirtualObject;
+
+import java.util.List;
+
+/**
+ * A {@link ListCallback} that is also a
+ * {@link com.google.common.util.concurrent.ListenableFuture}, completed
+ * directly by the response parser.
+ */
+public class ListFuture<T extends VirtualObject> extends AbstractFuture<List<T>>
+        implements ListCallback<T> {
+
+    @Override
+    public void onSuccess(List<T> objects) {
+        set(objects);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        setException(t);
+    }
+}
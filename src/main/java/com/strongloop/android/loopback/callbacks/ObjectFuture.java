@@ -0,0 +1,23 @@
+package com.strongloop.android.loopback.callbacks;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.strongloop.android.remoting.VirtualObject;
+
+/**
+ * An {@link ObjectCallback} that is also a
+ * {@link com.google.common.util.concurrent.ListenableFuture}, completed
+ * directly by the response parser.
+ */
+public class ObjectFuture<T extends VirtualObject> extends AbstractFuture<T>
+        implements ObjectCallback<T> {
+
+    @Override
+    public void onSuccess(T object) {
+        set(object);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        setException(t);
+    }
+}
@@ -0,0 +1,21 @@
+package com.strongloop.android.loopback.callbacks;
+
+import com.google.common.util.concurrent.AbstractFuture;
+
+/**
+ * A {@link VoidCallback} that is also a
+ * {@link com.google.common.util.concurrent.ListenableFuture}, completed
+ * directly by the response parser.
+ */
+public class VoidFuture extends AbstractFuture<Void> implements VoidCallback {
+
+    @Override
+    public void onSuccess() {
+        set(null);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        setException(t);
+    }
+}
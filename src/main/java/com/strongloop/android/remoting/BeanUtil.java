@@ -2,20 +2,45 @@ package com.strongloop.android.remoting;
 
 import com.strongloop.android.util.Log;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class BeanUtil {
+
+    // Accessors are resolved once per class and reused for every object.
+    private static final ClassValue<BeanAccessors> publicAccessors =
+            new ClassValue<BeanAccessors>() {
+                @Override
+                protected BeanAccessors computeValue(Class<?> type) {
+                    return new BeanAccessors(type, true);
+                }
+            };
+    private static final ClassValue<BeanAccessors> declaredAccessors =
+            new ClassValue<BeanAccessors>() {
+                @Override
+                protected BeanAccessors computeValue(Class<?> type) {
+                    return new BeanAccessors(type, false);
+                }
+            };
+
     public static void setProperties(Object object, Map<String, ? extends Object> properties, boolean includeSuperClasses) {
         if (object == null || properties == null) {
             return;
         }
 
-        Class<?> objectClass = object.getClass();
+        BeanAccessors accessors = getAccessors(object.getClass(), includeSuperClasses);
 
         for (Map.Entry<String, ? extends Object> entry : properties.entrySet()) {
             String key = entry.getKey();
@@ -23,111 +48,301 @@ public class BeanUtil {
             if (key == null) continue;
             if (key.length() == 0) continue;
 
-            String setterName = "set" + Character.toUpperCase(key.charAt(0)) + key.substring(1);
-            Method setter = null;
+            Accessor setter = accessors.getSetters(key).find(value);
 
-            // Try to use the exact setter
-            if (value != null) {
-                try {
-                    if (includeSuperClasses) {
-                        setter = objectClass.getMethod(setterName, value.getClass());
-                    } else {
-                        setter = objectClass.getDeclaredMethod(setterName, value.getClass());
+            // Invoke
+            if (setter != null) {
+                if (setter.isTransient) continue;
+                setter.set(object, value);
+            }
+        }
+    }
+
+    public static Map<String, Object> getProperties(Object object, boolean includeSuperClasses, boolean deepCopy) {
+        HashMap<String, Object> map = new HashMap<String, Object>();
+        if (object == null) {
+            return map;
+        }
+
+        BeanAccessors accessors = getAccessors(object.getClass(), includeSuperClasses);
+        for (Accessor getter : accessors.getters) {
+            String propertyName = getter.propertyName;
+            Object value = getter.get(object);
+
+            if (!deepCopy) {
+                map.put(propertyName, value);
+            } else {
+                if (isSimpleObject(value)) {
+                    map.put(propertyName, value);
+                } else if (value instanceof Map) {
+                    Map<String, Object> submap = new HashMap<String, Object>();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        submap.put(String.valueOf(entry.getKey()), convertObject(entry.getValue(), includeSuperClasses));
+                    }
+                    map.put(propertyName, submap);
+                } else if (value instanceof Iterable) {
+                    List<Object> sublist = new ArrayList<Object>();
+                    for (Object v : (Iterable<?>) value) {
+                        sublist.add(convertObject(v, includeSuperClasses));
                     }
-                } catch (Exception ex) {
+                    map.put(propertyName, sublist);
+                } else if (value.getClass().isArray()) {
+                    List<Object> sublist = new ArrayList<Object>();
+                    int length = Array.getLength(value);
+                    for (int i = 0; i < length; i++) {
+                        sublist.add(convertObject(Array.get(value, i), includeSuperClasses));
+                    }
+                    map.put(propertyName, sublist);
+                } else {
+                    map.put(propertyName, getProperties(value, includeSuperClasses, deepCopy));
                 }
             }
+        }
 
-            // Find a more generic setter
-            if (setter == null) {
-                Method[] methods = includeSuperClasses ? objectClass.getMethods() : objectClass.getDeclaredMethods();
-                for (Method method : methods) {
-                    if (method.getName().equals(setterName)) {
-                        Class<?>[] parameterTypes = method.getParameterTypes();
-                        if (parameterTypes.length == 1 && isAssignableFrom(parameterTypes[0], value)) {
-                            setter = method;
-                            break;
-                        }
+        return map;
+    }
+
+    /**
+     * Gets the names of the bean properties with a getter.
+     * @param objectClass The bean class.
+     * @param includeSuperClasses <code>false</code> to only consider the
+     * getters declared by <code>objectClass</code> itself.
+     * @return the property names.
+     */
+    public static Set<String> getPropertyNames(Class<?> objectClass, boolean includeSuperClasses) {
+        return getAccessors(objectClass, includeSuperClasses).propertyNames;
+    }
+
+    private static BeanAccessors getAccessors(Class<?> objectClass, boolean includeSuperClasses) {
+        return includeSuperClasses
+                ? publicAccessors.get(objectClass)
+                : declaredAccessors.get(objectClass);
+    }
+
+    /**
+     * The getters and setters of a single class.
+     */
+    private static class BeanAccessors {
+        final Accessor[] getters;
+        final Set<String> propertyNames;
+        final Map<String, List<Method>> settersByName = new HashMap<String, List<Method>>();
+        final ConcurrentMap<String, PropertySetters> settersByKey =
+                new ConcurrentHashMap<String, PropertySetters>();
+
+        BeanAccessors(Class<?> objectClass, boolean includeSuperClasses) {
+            Method[] methods = includeSuperClasses ? objectClass.getMethods() : objectClass.getDeclaredMethods();
+            List<Accessor> getterList = new ArrayList<Accessor>();
+
+            for (Method method : methods) {
+                String methodName = method.getName();
+                Class<?>[] parameterTypes = method.getParameterTypes();
+
+                if (parameterTypes.length == 1 && methodName.startsWith("set")) {
+                    List<Method> setters = settersByName.get(methodName);
+                    if (setters == null) {
+                        setters = new ArrayList<Method>();
+                        settersByName.put(methodName, setters);
                     }
+                    setters.add(method);
+                }
+
+                if (method.getDeclaringClass() == java.lang.Object.class) continue;
+                if (parameterTypes.length > 0) continue;
+                if (method.getReturnType().equals(Void.TYPE)) continue;
+                if (method.getAnnotation(Transient.class) != null) continue;
+
+                String propertyName = "";
+                if (methodName.startsWith("get")) {
+                    propertyName = methodName.substring(3);
+                } else if (methodName.startsWith("is")) {
+                    propertyName = methodName.substring(2);
+                }
+                if (propertyName.length() > 0 && Character.isUpperCase(propertyName.charAt(0))) {
+                    propertyName = Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
+                    getterList.add(new Accessor(method, propertyName,
+                            MethodType.methodType(Object.class, Object.class)));
                 }
             }
 
-            // Invoke
-            if (setter != null) {
-                if (setter.getAnnotation(Transient.class) != null) continue;
+            getters = getterList.toArray(new Accessor[getterList.size()]);
+            Set<String> names = new HashSet<String>();
+            for (Accessor getter : getters) {
+                names.add(getter.propertyName);
+            }
+            propertyNames = Collections.unmodifiableSet(names);
+        }
 
-                try {
-                    setter.invoke(object, value);
-                } catch (Exception e) {
-                    Log.getLogger().severe("BeanUtil: " + setterName + "() failed " + e.getMessage());
+        PropertySetters getSetters(String key) {
+            PropertySetters setters = settersByKey.get(key);
+            if (setters == null) {
+                String setterName = "set" + Character.toUpperCase(key.charAt(0)) + key.substring(1);
+                setters = new PropertySetters(settersByName.get(setterName));
+                PropertySetters existing = settersByKey.putIfAbsent(key, setters);
+                if (existing != null) {
+                    setters = existing;
                 }
             }
+            return setters;
         }
     }
 
-    public static Map<String, Object> getProperties(Object object, boolean includeSuperClasses, boolean deepCopy) {
-        HashMap<String, Object> map = new HashMap<String, Object>();
-        if (object == null) {
-            return map;
+    /**
+     * The overloads of a single setter, plus the overload chosen for each
+     * value type seen so far.
+     */
+    private static class PropertySetters {
+        private static final Accessor NO_SETTER = new Accessor();
+
+        private final Accessor[] candidates;
+        private final ConcurrentMap<Class<?>, Accessor> resolved =
+                new ConcurrentHashMap<Class<?>, Accessor>();
+
+        PropertySetters(List<Method> methods) {
+            if (methods == null) {
+                candidates = new Accessor[0];
+            } else {
+                candidates = new Accessor[methods.size()];
+                for (int i = 0; i < candidates.length; i++) {
+                    candidates[i] = new Accessor(methods.get(i), null,
+                            MethodType.methodType(void.class, Object.class, Object.class));
+                }
+            }
+        }
+
+        Accessor find(Object value) {
+            if (candidates.length == 0) {
+                return null;
+            }
+
+            // Void.class can never be the class of a value, use it for null.
+            Class<?> valueClass = value != null ? value.getClass() : Void.class;
+            Accessor setter = resolved.get(valueClass);
+            if (setter == null) {
+                setter = resolve(value);
+                resolved.putIfAbsent(valueClass, setter);
+            }
+            return setter != NO_SETTER ? setter : null;
         }
 
-        Class<?> objectClass = object.getClass();
-        Method[] methods = includeSuperClasses ? objectClass.getMethods() : objectClass.getDeclaredMethods();
-        for (Method method : methods) {
-            if (method.getDeclaringClass() == java.lang.Object.class) continue;
-            if (method.getParameterTypes().length > 0) continue;
-            if (method.getReturnType().equals(Void.TYPE)) continue;
-            if (method.getAnnotation(Transient.class) != null) continue;
-
-            String methodName = method.getName();
-            String propertyName = "";
-            if (methodName.startsWith("get")) {
-                propertyName = methodName.substring(3);
-            } else if (methodName.startsWith("is")) {
-                propertyName = methodName.substring(2);
-            }
-            if (propertyName.length() > 0 && Character.isUpperCase(propertyName.charAt(0))) {
-                propertyName = Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
-
-                Object value = null;
-                try {
-                    value = method.invoke(object);
-                } catch (Exception e) {
-                    Log.getLogger().severe("BeanUtil: " + method.getName() + "() failed: " + e.getMessage());
+        private Accessor resolve(Object value) {
+            // Try to use the exact setter
+            if (value != null) {
+                for (Accessor candidate : candidates) {
+                    if (candidate.parameterType == value.getClass()) {
+                        return candidate;
+                    }
+                }
+            }
+
+            // Find a more generic setter
+            for (Accessor candidate : candidates) {
+                if (isAssignableFrom(candidate.parameterType, value)) {
+                    return candidate;
                 }
+            }
+            return NO_SETTER;
+        }
+    }
 
-                if (!deepCopy) {
-                    map.put(propertyName, value);
+    /**
+     * A getter or setter, invoked through a {@link MethodHandle} when the
+     * method is publicly accessible and through reflection otherwise.
+     */
+    private static class Accessor {
+        final Method method;
+        final MethodHandle handle;
+        final String propertyName;
+        final Class<?> parameterType;
+        final boolean isTransient;
+
+        Accessor() {
+            this.method = null;
+            this.handle = null;
+            this.propertyName = null;
+            this.parameterType = null;
+            this.isTransient = false;
+        }
+
+        Accessor(Method method, String propertyName, MethodType type) {
+            this.method = method;
+            this.propertyName = propertyName;
+            this.parameterType = method.getParameterTypes().length > 0
+                    ? method.getParameterTypes()[0]
+                    : null;
+            this.isTransient = method.getAnnotation(Transient.class) != null;
+
+            MethodHandle handle = null;
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method).asType(type);
+            } catch (IllegalAccessException e) {
+                // Not accessible, fall back to reflection.
+            }
+            this.handle = handle;
+        }
+
+        Object get(Object object) {
+            try {
+                if (handle != null) {
+                    return (Object) handle.invokeExact(object);
                 } else {
-                    if (isSimpleObject(value)) {
-                        map.put(propertyName, value);
-                    } else if (value instanceof Map) {
-                        Map<String, Object> submap = new HashMap<String, Object>();
-                        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
-                            submap.put(String.valueOf(entry.getKey()), convertObject(entry.getValue(), includeSuperClasses));
-                        }
-                        map.put(propertyName, submap);
-                    } else if (value instanceof Iterable) {
-                        List<Object> sublist = new ArrayList<Object>();
-                        for (Object v : (Iterable<?>) object) {
-                            sublist.add(convertObject(v, includeSuperClasses));
-                        }
-                        map.put(propertyName, sublist);
-                    } else if (value.getClass().isArray()) {
-                        List<Object> sublist = new ArrayList<Object>();
-                        int length = Array.getLength(value);
-                        for (int i = 0; i < length; i++) {
-                            sublist.add(convertObject(Array.get(value, i), includeSuperClasses));
-                        }
-                        map.put(propertyName, sublist);
-                    } else {
-                        map.put(propertyName, getProperties(value, includeSuperClasses, deepCopy));
-                    }
+                    return method.invoke(object);
                 }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                Log.getLogger().severe("BeanUtil: " + method.getName() + "() failed: " + e.getMessage());
+                return null;
             }
         }
 
-        return map;
+        void set(Object object, Object value) {
+            try {
+                if (handle != null) {
+                    handle.invokeExact(object, coerce(parameterType, value));
+                } else {
+                    method.invoke(object, value);
+                }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                Log.getLogger().severe("BeanUtil: " + method.getName() + "() failed " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies the primitive widening conversion that reflection performs
+     * implicitly, e.g. a <code>Short</code> value for an <code>int</code>
+     * parameter.
+     */
+    private static Object coerce(Class<?> parameterType, Object value) {
+        if (value == null || !parameterType.isPrimitive()
+                || parameterType == Boolean.TYPE || parameterType == Character.TYPE) {
+            return value;
+        }
+
+        Number number = value instanceof Character
+                ? Integer.valueOf((Character) value)
+                : (Number) value;
+
+        if (parameterType == Integer.TYPE) {
+            return number.intValue();
+        }
+        else if (parameterType == Long.TYPE) {
+            return number.longValue();
+        }
+        else if (parameterType == Double.TYPE) {
+            return number.doubleValue();
+        }
+        else if (parameterType == Float.TYPE) {
+            return number.floatValue();
+        }
+        else if (parameterType == Short.TYPE) {
+            return number.shortValue();
+        }
+        else {
+            return number.byteValue();
+        }
     }
 
     private static boolean isAssignableFrom(Class<?> parameterType, Object value) {
@@ -12,6 +12,7 @@ import java.util.Map;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 /**
  * Utility methods for converting JSON objects to Java collection objects
@@ -116,6 +117,85 @@ public class JsonUtil {
         return list;
     }
 
+    /**
+     * Reads the next JSON value from the tokener straight into Java
+     * collection objects, without building an intermediate
+     * {@link org.json.JSONObject} or {@link org.json.JSONArray}.
+     * A JSON object is read as a {@link java.util.Map}, a JSON array as a
+     * {@link java.util.List} and JSON <code>null</code> as <code>null</code>.
+     * @param tokener The tokener to read from, e.g. one wrapping a
+     * {@link java.io.Reader} over a response stream.
+     * @return the value read.
+     * @throws JSONException If the input is not valid JSON.
+     */
+    public static Object readJson(JSONTokener tokener) throws JSONException {
+        char c = tokener.nextClean();
+        switch (c) {
+            case '{':
+                return readObject(tokener);
+            case '[':
+                return readArray(tokener);
+            default:
+                tokener.back();
+                Object value = tokener.nextValue();
+                return value == JSONObject.NULL ? null : value;
+        }
+    }
+
+    private static Map<String, Object> readObject(JSONTokener tokener)
+            throws JSONException {
+        Map<String, Object> map = new HashMap<String, Object>();
+        if (tokener.nextClean() == '}') {
+            return map;
+        }
+        tokener.back();
+
+        while (true) {
+            char c = tokener.nextClean();
+            String key;
+            if (c == '"' || c == '\'') {
+                key = tokener.nextString(c);
+            } else if (c == 0) {
+                throw tokener.syntaxError("A JSONObject text must end with '}'");
+            } else {
+                tokener.back();
+                key = tokener.nextValue().toString();
+            }
+
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            map.put(key, readJson(tokener));
+
+            c = tokener.nextClean();
+            if (c == '}') {
+                return map;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+    private static List<Object> readArray(JSONTokener tokener)
+            throws JSONException {
+        List<Object> list = new ArrayList<Object>();
+        if (tokener.nextClean() == ']') {
+            return list;
+        }
+        tokener.back();
+
+        while (true) {
+            list.add(readJson(tokener));
+
+            char c = tokener.nextClean();
+            if (c == ']') {
+                return list;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
     private static Object fromJson(Object json) {
         if (json == JSONObject.NULL) {
             return null;
@@ -5,6 +5,7 @@ package com.strongloop.android.remoting;
 import java.util.Map;
 
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
 
 /**
  * A local representative of remote model repository, it provides
@@ -42,6 +43,14 @@ public class Repository<T extends VirtualObject> {
             this.objectClass = (Class<T>)VirtualObject.class;
     }
 
+    /**
+     * Gets the class of the objects created by this repository.
+     * @return the object class.
+     */
+    public Class<T> getObjectClass() {
+        return objectClass;
+    }
+
     /**
      * Gets the name given to this prototype on the server.
      * @return the class name.
@@ -135,4 +144,45 @@ public class Repository<T extends VirtualObject> {
         String path = className + "." + method;
         adapter.invokeStaticMethod(path, parameters, callback);
     }
+
+    /**
+     * Invokes a remotable method exposed statically within this class on the
+     * server, with settings specific to this request.
+     * @param method The method to invoke (without the class name), e.g.
+     * <code>"doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   Adapter.Callback callback) {
+        if (adapter == null) {
+            throw new IllegalArgumentException("No adapter set");
+        }
+        String path = className + "." + method;
+        adapter.invokeStaticMethod(path, parameters, options, callback);
+    }
+
+    /**
+     * Invokes a remotable method exposed statically within this class on the
+     * server, with settings specific to this request,
+     * parses the response as binary data.
+     * @param method The method to invoke (without the class name), e.g.
+     * <code>"doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   Adapter.BinaryCallback callback) {
+        if (adapter == null) {
+            throw new IllegalArgumentException("No adapter set");
+        }
+        String path = className + "." + method;
+        adapter.invokeStaticMethod(path, parameters, options, callback);
+    }
 }
@@ -3,6 +3,7 @@
 package com.strongloop.android.remoting;
 
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
 
 import java.util.Map;
 
@@ -121,4 +122,51 @@ public class VirtualObject {
         adapter.invokeInstanceMethod(path, creationParameters, parameters,
                 callback);
     }
+
+    /**
+     * Invokes a remotable method exposed within instances of this class on the
+     * server, with settings specific to this request.
+     * @param method The method to invoke (without the repository), e.g.
+     * <code>"doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeMethod(String method,
+                             Map<String, ? extends Object> parameters,
+                             RequestOptions options,
+                             Adapter.Callback callback) {
+        Adapter adapter = repository.getAdapter();
+        if (adapter == null) {
+            throw new IllegalArgumentException(
+                    "Repository adapter cannot be null");
+        }
+        String path = repository.getClassName() + ".prototype." + method;
+        adapter.invokeInstanceMethod(path, creationParameters, parameters,
+                options, callback);
+    }
+
+    /**
+     * Invokes a remotable method exposed within instances of this class on the
+     * server, with settings specific to this request,
+     * parses the response as binary data.
+     * @param method The method to invoke (without the repository), e.g.
+     * <code>"doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeMethod(String method,
+                             Map<String, ? extends Object> parameters,
+                             RequestOptions options,
+                             Adapter.BinaryCallback callback) {
+        Adapter adapter = repository.getAdapter();
+        if (adapter == null) {
+            throw new IllegalArgumentException(
+                    "Repository adapter cannot be null");
+        }
+        String path = repository.getClassName() + ".prototype." + method;
+        adapter.invokeInstanceMethod(path, creationParameters, parameters,
+                options, callback);
+    }
 }
@@ -7,6 +7,9 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -36,6 +39,40 @@ public abstract class Adapter {
         public void onError(Throwable t);
     }
 
+    /**
+     * A callback that consumes a binary HTTP response body part by part, as
+     * it arrives. Adapters that support streaming call {@link #onStart},
+     * {@link #onBodyPart} and {@link #onComplete()}, other adapters fall
+     * back to {@link BinaryCallback#onSuccess(byte[], String)}.
+     * <p>
+     * Responses with an error status are not streamed, they are reported
+     * to {@link #onError(Throwable)} as an {@link HttpResponseException}.
+     */
+    public interface BinaryStreamCallback extends BinaryCallback {
+
+        /**
+         * The method invoked before the first body part.
+         * @param statusCode The response status, e.g. <code>200</code> or
+         *                   <code>206</code>.
+         * @param headers The response headers, with case-insensitive names.
+         * @throws IOException to abort the download.
+         */
+        public void onStart(int statusCode, Map<String, String> headers)
+                throws IOException;
+
+        /**
+         * The method invoked for each part of the body, in order.
+         * @param bodyPart The content. It is only valid during the call.
+         * @throws IOException to abort the download.
+         */
+        public void onBodyPart(ByteBuffer bodyPart) throws IOException;
+
+        /**
+         * The method invoked after the last body part.
+         */
+        public void onComplete();
+    }
+
     /**
      * A callback that returns the HTTP response body.
      */
@@ -54,6 +91,22 @@ public abstract class Adapter {
         public void onError(Throwable t);
     }
 
+    /**
+     * A callback that can consume the HTTP response body as a character
+     * stream instead of a single String. Adapters that support streaming
+     * call {@link #onSuccess(Reader)}, other adapters fall back to
+     * {@link Callback#onSuccess(String)}.
+     */
+    public interface StreamCallback extends Callback {
+
+        /**
+         * The method invoked when the call completes successfully.
+         * @param response A reader over the HTTP response body, decoded
+         * using the charset of the response.
+         */
+        public void onSuccess(Reader response);
+    }
+
     /**
      * A callback that parses a JSON response. If the return value
      * is not valid JSON, then the {@link #onError(Throwable)} method is called.
@@ -250,4 +303,77 @@ public abstract class Adapter {
                 getClass().getName() + " does not support binary responses.");
     }
 
+    /**
+     * Invokes a remotable method exposed statically on the server, with
+     * settings specific to this request. Adapters that do not support
+     * request options ignore them.
+     * @param method The method to invoke, e.g.
+     * 		<code>"module.doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   Callback callback) {
+        invokeStaticMethod(method, parameters, callback);
+    }
+
+    /**
+     * Invokes a remotable method exposed statically on the server, with
+     * settings specific to this request, parses the response as binary data.
+     * Adapters that do not support request options ignore them.
+     * @param method The method to invoke, e.g.
+     * 		<code>"module.doSomething"</code>.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   BinaryCallback callback) {
+        invokeStaticMethod(method, parameters, callback);
+    }
+
+    /**
+     * Invokes a remotable method exposed within a prototype on the server,
+     * with settings specific to this request. Adapters that do not support
+     * request options ignore them.
+     * @param method The method to invoke, e.g.
+     * 		<code>"MyClass.prototype.doSomething"</code>.
+     * @param constructorParameters The parameters the virtual object should be
+     * created with.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     RequestOptions options,
+                                     Callback callback) {
+        invokeInstanceMethod(method, constructorParameters, parameters, callback);
+    }
+
+    /**
+     * Invokes a remotable method exposed within a prototype on the server,
+     * with settings specific to this request, parses the response as binary
+     * data. Adapters that do not support request options ignore them.
+     * @param method The method to invoke, e.g.
+     * 		<code>"MyClass.prototype.doSomething"</code>.
+     * @param constructorParameters The parameters the virtual object should be
+     * created with.
+     * @param parameters The parameters to invoke with.
+     * @param options The request options.
+     * @param callback The callback to invoke when the execution finishes.
+     */
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     RequestOptions options,
+                                     BinaryCallback callback) {
+        invokeInstanceMethod(method, constructorParameters, parameters, callback);
+    }
 }
@@ -0,0 +1,209 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies a {@link BulkheadPolicy} to the requests of a group of contract
+ * methods, along with live statistics of the group.
+ * <p>
+ * Requests start in the order they were made: once a request waits in the
+ * queue, the following ones queue behind it.
+ */
+public class Bulkhead {
+
+    enum Admission {
+        STARTED,
+        QUEUED,
+        REJECTED
+    }
+
+    private final String name;
+    private final BulkheadPolicy policy;
+    private final RestAdapter adapter;
+
+    private final Queue<Runnable> queue = new ArrayDeque<Runnable>();
+    private int inFlight;
+    private double tokens;
+    private long refilledAtNanos;
+    private boolean drainScheduled;
+
+    private final AtomicLong startedRequests = new AtomicLong();
+    private final AtomicLong queuedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    Bulkhead(String name, BulkheadPolicy policy, RestAdapter adapter) {
+        this.name = name;
+        this.policy = policy;
+        this.adapter = adapter;
+        this.tokens = policy.getBurstSize();
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the name of the group.
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of requests of the group in flight.
+     * @return the number of requests.
+     */
+    public synchronized int getInFlightRequests() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the number of requests waiting to start.
+     * @return the number of requests.
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of requests started so far.
+     * @return the number of requests.
+     */
+    public long getStartedRequests() {
+        return startedRequests.get();
+    }
+
+    /**
+     * Gets the number of requests that had to wait before starting.
+     * @return the number of requests.
+     */
+    public long getQueuedRequests() {
+        return queuedRequests.get();
+    }
+
+    /**
+     * Gets the number of requests rejected with a
+     * {@link BulkheadFullException}.
+     * @return the number of requests.
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{name=" + name
+                + ", inFlight=" + getInFlightRequests()
+                + ", queued=" + getQueueLength()
+                + ", started=" + getStartedRequests()
+                + ", rejected=" + getRejectedRequests()
+                + "}";
+    }
+
+    /**
+     * Lets a request start now, queues <code>send</code> to start it later,
+     * or rejects it. A started request must call {@link #release()} once
+     * completed.
+     */
+    synchronized Admission admit(Runnable send) {
+        if (queue.isEmpty() && tryStart()) {
+            return Admission.STARTED;
+        }
+        if (queue.size() >= policy.getMaxQueueLength()) {
+            rejectedRequests.incrementAndGet();
+            return Admission.REJECTED;
+        }
+        queue.add(send);
+        queuedRequests.incrementAndGet();
+        scheduleDrain();
+        return Admission.QUEUED;
+    }
+
+    /**
+     * Removes a request from the queue, before it started.
+     * @return <code>false</code> if it is not queued any more.
+     */
+    synchronized boolean remove(Runnable send) {
+        return queue.remove(send);
+    }
+
+    void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable send;
+            synchronized (this) {
+                if (queue.isEmpty() || !tryStart()) {
+                    scheduleDrain();
+                    return;
+                }
+                send = queue.poll();
+            }
+            send.run();
+        }
+    }
+
+    private boolean tryStart() {
+        int maxConcurrentRequests = policy.getMaxConcurrentRequests();
+        if (maxConcurrentRequests >= 0 && inFlight >= maxConcurrentRequests) {
+            return false;
+        }
+        if (policy.getRequestsPerSecond() > 0) {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+        }
+        inFlight++;
+        startedRequests.incrementAndGet();
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(policy.getBurstSize(), tokens
+                + (now - refilledAtNanos) * policy.getRequestsPerSecond() / 1e9);
+        refilledAtNanos = now;
+    }
+
+    /**
+     * Starts the queued requests once the token bucket is refilled. When
+     * the group is at its concurrency limit, they are started as requests
+     * complete instead.
+     */
+    private void scheduleDrain() {
+        int maxConcurrentRequests = policy.getMaxConcurrentRequests();
+        if (queue.isEmpty() || drainScheduled
+                || policy.getRequestsPerSecond() <= 0
+                || (maxConcurrentRequests >= 0 && inFlight >= maxConcurrentRequests)) {
+            return;
+        }
+        RestAdapter.HttpClient client = adapter.getClient();
+        if (client == null) {
+            return;
+        }
+        refill();
+        long delay = (long) Math.ceil(
+                (1 - tokens) * 1000 / policy.getRequestsPerSecond());
+        try {
+            client.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (Bulkhead.this) {
+                        drainScheduled = false;
+                    }
+                    drain();
+                }
+            }, Math.max(1, delay));
+            drainScheduled = true;
+        } catch (RuntimeException e) {
+            // The client was closed, the queued requests cannot be sent.
+        }
+    }
+}
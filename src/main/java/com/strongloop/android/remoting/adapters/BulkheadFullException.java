@@ -0,0 +1,26 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request was not sent because its bulkhead has no room
+ * left, neither in flight nor in its queue.
+ *
+ * @see BulkheadPolicy
+ */
+public class BulkheadFullException extends IOException {
+
+    private final String bulkheadName;
+
+    public BulkheadFullException(String bulkheadName) {
+        super("Bulkhead " + bulkheadName + " is full");
+        this.bulkheadName = bulkheadName;
+    }
+
+    /**
+     * @return the name of the full bulkhead.
+     */
+    public String getBulkheadName() {
+        return bulkheadName;
+    }
+}
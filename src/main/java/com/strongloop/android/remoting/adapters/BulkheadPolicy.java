@@ -0,0 +1,104 @@
+package com.strongloop.android.remoting.adapters;
+
+/**
+ * Limits the requests of a group of contract methods, so that one kind of
+ * traffic cannot starve the others of connections.
+ * <p>
+ * A request starts when fewer than <code>maxConcurrentRequests</code>
+ * requests of the group are in flight, and the group's token bucket holds
+ * a token. The bucket is refilled at <code>requestsPerSecond</code>, and
+ * holds up to <code>burstSize</code> tokens. A request that cannot start
+ * waits in a queue of at most <code>maxQueueLength</code> requests, and
+ * fails with a {@link BulkheadFullException} when the queue is full.
+ * <pre>
+ * {@code
+ * BulkheadPolicy uploads = new BulkheadPolicy();
+ * uploads.setMaxConcurrentRequests(2);
+ * uploads.setMaxQueueLength(100);
+ * RestAdapterConfig config = new RestAdapterConfig();
+ * config.addBulkhead("uploads", uploads, "*.upload");
+ * }
+ * </pre>
+ *
+ * @see RestAdapterConfig#addBulkhead(String, BulkheadPolicy, String...)
+ */
+public class BulkheadPolicy {
+
+    private int maxConcurrentRequests = -1;
+    private double requestsPerSecond;
+    private int burstSize = 1;
+    private int maxQueueLength;
+
+    /**
+     * Gets the maximum number of requests of the group in flight.
+     * @return the limit, or <code>-1</code> when unlimited.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Sets the maximum number of requests of the group in flight. A request
+     * stays in flight while it is retried.
+     * @param maxConcurrentRequests The limit, or <code>-1</code> for
+     * unlimited.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Gets the sustained rate at which requests of the group start.
+     * @return the rate, or <code>0</code> when unlimited.
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Sets the sustained rate at which requests of the group start.
+     * @param requestsPerSecond The rate, or <code>0</code> for unlimited.
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Gets the number of requests that can start at once when the rate
+     * limit was not reached for a while.
+     * @return the number of requests.
+     */
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    /**
+     * Sets the number of requests that can start at once when the rate
+     * limit was not reached for a while. Only used with
+     * {@link #setRequestsPerSecond(double)}.
+     * @param burstSize The number of requests.
+     */
+    public void setBurstSize(int burstSize) {
+        if (burstSize < 1) {
+            throw new IllegalArgumentException("Burst size must be positive");
+        }
+        this.burstSize = burstSize;
+    }
+
+    /**
+     * Gets the maximum number of requests waiting to start.
+     * @return the number of requests.
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Sets the maximum number of requests waiting to start. Use
+     * <code>0</code> to reject requests over the limits immediately.
+     * @param maxQueueLength The number of requests.
+     */
+    public void setMaxQueueLength(int maxQueueLength) {
+        this.maxQueueLength = maxQueueLength;
+    }
+}
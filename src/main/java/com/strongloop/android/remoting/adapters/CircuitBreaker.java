@@ -0,0 +1,233 @@
+package com.strongloop.android.remoting.adapters;
+
+import com.strongloop.android.util.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops sending requests to a degraded backend, so that callers fail fast
+ * instead of waiting for timeouts. See {@link CircuitBreakerPolicy} for
+ * when a breaker opens and closes again.
+ * <p>
+ * Every attempt of a request is a call: a retry is only sent when the
+ * breaker lets it through, and its outcome is recorded too. Responses
+ * served from the response cache, and requests coalesced with one in
+ * flight, are not counted.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+        /** Calls are sent, and their outcome is tracked. */
+        CLOSED,
+        /** Calls are rejected without being sent. */
+        OPEN,
+        /** A limited number of probe calls are sent. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+
+    // The outcome of the last calls, in a ring buffer.
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextCall;
+    private int bufferedCalls;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong[] transitions = new AtomicLong[State.values().length];
+
+    CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        this.failedCalls = new boolean[policy.getWindowSize()];
+        this.slowCalls = new boolean[policy.getWindowSize()];
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Gets the name of this breaker: the contract method or the host it
+     * guards.
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the current state of this breaker.
+     * @return the state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the percentage of failed calls among the tracked calls.
+     * @return the percentage, or <code>0</code> if no call was tracked.
+     */
+    public synchronized float getFailureRate() {
+        return bufferedCalls > 0 ? failureCount * 100f / bufferedCalls : 0;
+    }
+
+    /**
+     * Gets the percentage of slow calls among the tracked calls.
+     * @return the percentage, or <code>0</code> if no call was tracked.
+     */
+    public synchronized float getSlowCallRate() {
+        return bufferedCalls > 0 ? slowCount * 100f / bufferedCalls : 0;
+    }
+
+    /**
+     * Gets the number of calls whose outcome is currently tracked.
+     * @return the number of calls.
+     */
+    public synchronized int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    /**
+     * Gets the number of calls rejected while this breaker was open or
+     * half-open.
+     * @return the number of rejected calls.
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * Gets the number of times this breaker entered <code>state</code>.
+     * @param state The state.
+     * @return the number of transitions.
+     */
+    public long getTransitionCount(State state) {
+        return transitions[state.ordinal()].get();
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{name=" + name
+                + ", state=" + getState()
+                + ", failureRate=" + getFailureRate()
+                + ", slowCallRate=" + getSlowCallRate()
+                + ", rejected=" + getRejectedCalls()
+                + ", opened=" + getTransitionCount(State.OPEN)
+                + "}";
+    }
+
+    /**
+     * @return <code>true</code> if a call may be sent.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            long openNanos = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= policy.getHalfOpenCalls()) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of a call let through by {@link #tryAcquire()}.
+     */
+    synchronized void onResult(boolean failed, long durationNanos) {
+        boolean slow = durationNanos
+                >= TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDuration());
+        switch (state) {
+            case HALF_OPEN:
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++probesSucceeded >= policy.getHalfOpenCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+                break;
+            case CLOSED:
+                record(failed, slow);
+                if (isDegraded()) {
+                    transitionTo(State.OPEN);
+                }
+                break;
+            case OPEN:
+                // A call sent before the breaker opened.
+                break;
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (bufferedCalls == failedCalls.length) {
+            if (failedCalls[nextCall]) {
+                failureCount--;
+            }
+            if (slowCalls[nextCall]) {
+                slowCount--;
+            }
+        } else {
+            bufferedCalls++;
+        }
+        failedCalls[nextCall] = failed;
+        slowCalls[nextCall] = slow;
+        if (failed) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCount++;
+        }
+        nextCall = (nextCall + 1) % failedCalls.length;
+    }
+
+    private boolean isDegraded() {
+        if (bufferedCalls < Math.min(policy.getMinimumCalls(), failedCalls.length)) {
+            return false;
+        }
+        return failureCount * 100f / bufferedCalls >= policy.getFailureRateThreshold()
+                || slowCount * 100f / bufferedCalls >= policy.getSlowCallRateThreshold();
+    }
+
+    private void transitionTo(State newState) {
+        Log.getLogger().warning("Circuit breaker " + name + ": "
+                + state + " -> " + newState);
+        state = newState;
+        transitions[newState.ordinal()].incrementAndGet();
+        switch (newState) {
+            case OPEN:
+                openedAtNanos = System.nanoTime();
+                break;
+            case HALF_OPEN:
+                probesStarted = 0;
+                probesSucceeded = 0;
+                break;
+            case CLOSED:
+                Arrays.fill(failedCalls, false);
+                Arrays.fill(slowCalls, false);
+                nextCall = 0;
+                bufferedCalls = 0;
+                failureCount = 0;
+                slowCount = 0;
+                break;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.strongloop.android.remoting.adapters;
+
+/**
+ * Describes when the circuit breakers of a {@link RestAdapter} open.
+ * <p>
+ * A circuit breaker watches the outcome of the last
+ * <code>windowSize</code> calls. A call fails when the request cannot be
+ * sent or the server answers with a <code>5xx</code> status, and is slow
+ * when it takes longer than <code>slowCallDuration</code>. Once at least
+ * <code>minimumCalls</code> were made, the breaker opens when the
+ * percentage of failed calls reaches <code>failureRateThreshold</code>, or
+ * the percentage of slow calls reaches <code>slowCallRateThreshold</code>.
+ * <p>
+ * While open, calls fail immediately with a {@link CircuitOpenException},
+ * without contacting the server. After <code>openDuration</code>, the
+ * breaker becomes half-open and lets <code>halfOpenCalls</code> probe
+ * calls through: it closes again if they all succeed, and opens again as
+ * soon as one of them fails.
+ * <pre>
+ * {@code
+ * CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+ * policy.setFailureRateThreshold(25);
+ * policy.setOpenDuration(10000);
+ * RestAdapterConfig config = new RestAdapterConfig();
+ * config.setCircuitBreakerPolicy(policy);
+ * }
+ * </pre>
+ *
+ * @see RestAdapterConfig#setCircuitBreakerPolicy(CircuitBreakerPolicy)
+ * @see RestAdapter#getCircuitBreakers()
+ */
+public class CircuitBreakerPolicy {
+
+    /**
+     * What a single circuit breaker guards.
+     */
+    public enum Scope {
+        /** One breaker per contract method, e.g. <code>widget.findById</code>. */
+        METHOD,
+        /** One breaker for all the requests sent to the adapter's host. */
+        HOST
+    }
+
+    private Scope scope = Scope.METHOD;
+    private int windowSize = 100;
+    private int minimumCalls = 20;
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 100;
+    private long slowCallDuration = 10000;
+    private long openDuration = 30000;
+    private int halfOpenCalls = 5;
+
+    /**
+     * Gets what a single circuit breaker guards.
+     * @return the scope.
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Sets what a single circuit breaker guards: each contract method, or
+     * the whole host.
+     * @param scope The scope.
+     */
+    public void setScope(Scope scope) {
+        if (scope == null) {
+            throw new IllegalArgumentException("Scope cannot be null");
+        }
+        this.scope = scope;
+    }
+
+    /**
+     * Gets the number of most recent calls whose outcome is tracked.
+     * @return the number of calls.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the number of most recent calls whose outcome is tracked.
+     * @param windowSize The number of calls.
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Gets the number of calls needed before the failure rate is evaluated.
+     * @return the number of calls.
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * Sets the number of calls needed before the failure rate is evaluated,
+     * so that a single failed call does not open the breaker. It is capped
+     * by the window size.
+     * @param minimumCalls The number of calls.
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * Gets the percentage of failed calls that opens the breaker.
+     * @return the percentage.
+     */
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of failed calls that opens the breaker.
+     * @param failureRateThreshold The percentage, between 0 and 100.
+     */
+    public void setFailureRateThreshold(float failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * Gets the percentage of slow calls that opens the breaker.
+     * @return the percentage.
+     */
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of slow calls that opens the breaker.
+     * @param slowCallRateThreshold The percentage, between 0 and 100.
+     */
+    public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    /**
+     * Gets the duration from which a call is slow.
+     * @return the duration in milliseconds.
+     */
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * Sets the duration from which a call is slow.
+     * @param slowCallDuration The duration in milliseconds.
+     */
+    public void setSlowCallDuration(long slowCallDuration) {
+        this.slowCallDuration = slowCallDuration;
+    }
+
+    /**
+     * Gets how long the breaker stays open before letting probe calls
+     * through.
+     * @return the duration in milliseconds.
+     */
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Sets how long the breaker stays open before letting probe calls
+     * through.
+     * @param openDuration The duration in milliseconds.
+     */
+    public void setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Gets the number of probe calls let through while half-open.
+     * @return the number of calls.
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    /**
+     * Sets the number of probe calls let through while half-open. The
+     * breaker closes once they all succeeded.
+     * @param halfOpenCalls The number of calls.
+     */
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        if (halfOpenCalls < 1) {
+            throw new IllegalArgumentException("At least one probe call is required");
+        }
+        this.halfOpenCalls = halfOpenCalls;
+    }
+}
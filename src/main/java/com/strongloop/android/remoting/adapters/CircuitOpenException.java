@@ -0,0 +1,25 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request was not sent because its circuit breaker is open.
+ *
+ * @see CircuitBreaker
+ */
+public class CircuitOpenException extends IOException {
+
+    private final String circuitBreakerName;
+
+    public CircuitOpenException(String circuitBreakerName) {
+        super("Circuit breaker " + circuitBreakerName + " is open");
+        this.circuitBreakerName = circuitBreakerName;
+    }
+
+    /**
+     * @return the name of the open circuit breaker.
+     */
+    public String getCircuitBreakerName() {
+        return circuitBreakerName;
+    }
+}
@@ -0,0 +1,72 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte counts of the message bodies sent and received by a
+ * {@link RestAdapter}, before and after compression.
+ * <p>
+ * Bodies that are not compressed are counted on both sides, so the ratio
+ * of the two counts is the overall saving.
+ */
+public class CompressionStatistics {
+
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong compressedRequestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong compressedResponseBytes = new AtomicLong();
+
+    /**
+     * Gets the number of JSON request body bytes before compression.
+     * @return the uncompressed request bytes.
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * Gets the number of JSON request body bytes sent over the wire.
+     * @return the compressed request bytes.
+     */
+    public long getCompressedRequestBytes() {
+        return compressedRequestBytes.get();
+    }
+
+    /**
+     * Gets the number of response body bytes after decompression.
+     * @return the uncompressed response bytes.
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Gets the number of response body bytes received over the wire.
+     * @return the compressed response bytes.
+     */
+    public long getCompressedResponseBytes() {
+        return compressedResponseBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStatistics{requestBytes=" + getRequestBytes()
+                + ", compressedRequestBytes=" + getCompressedRequestBytes()
+                + ", responseBytes=" + getResponseBytes()
+                + ", compressedResponseBytes=" + getCompressedResponseBytes()
+                + "}";
+    }
+
+    void requestBodySent(long bytes, long compressedBytes) {
+        requestBytes.addAndGet(bytes);
+        compressedRequestBytes.addAndGet(compressedBytes);
+    }
+
+    void responseBodyReceived(long bytes) {
+        responseBytes.addAndGet(bytes);
+    }
+
+    void compressedResponseBodyReceived(long bytes) {
+        compressedResponseBytes.addAndGet(bytes);
+    }
+}
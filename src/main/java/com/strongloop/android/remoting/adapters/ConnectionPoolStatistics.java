@@ -0,0 +1,122 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of the connection pool used by a {@link RestAdapter}.
+ * <p>
+ * A connection is either <em>leased</em> (carrying a request) or
+ * <em>idle</em> (kept alive in the pool, waiting for the next request).
+ * The sum of both is the number of <em>active</em> connections.
+ */
+public class ConnectionPoolStatistics {
+
+    private final AtomicInteger leasedConnections = new AtomicInteger();
+    private final AtomicInteger idleConnections = new AtomicInteger();
+    private final AtomicLong openedConnections = new AtomicLong();
+    private final AtomicLong reusedConnections = new AtomicLong();
+    private final AtomicLong totalConnectNanos = new AtomicLong();
+    private final AtomicLong maxConnectNanos = new AtomicLong();
+
+    /**
+     * Gets the number of open connections, leased or idle.
+     * @return the number of active connections.
+     */
+    public int getActiveConnections() {
+        return getLeasedConnections() + getIdleConnections();
+    }
+
+    /**
+     * Gets the number of connections currently carrying a request.
+     * @return the number of leased connections.
+     */
+    public int getLeasedConnections() {
+        return leasedConnections.get();
+    }
+
+    /**
+     * Gets the number of connections kept alive in the pool.
+     * @return the number of idle connections.
+     */
+    public int getIdleConnections() {
+        return idleConnections.get();
+    }
+
+    /**
+     * Gets the number of new connections opened so far.
+     * @return the number of opened connections.
+     */
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Gets the number of requests that reused a pooled connection.
+     * @return the number of reused connections.
+     */
+    public long getReusedConnections() {
+        return reusedConnections.get();
+    }
+
+    /**
+     * Gets the average time it took to open a new connection.
+     * @param unit The unit of the result.
+     * @return the average connect latency, or <code>0</code> if no
+     * connection was opened yet.
+     */
+    public long getAverageConnectLatency(TimeUnit unit) {
+        long opened = openedConnections.get();
+        return opened == 0 ? 0 : unit.convert(
+                totalConnectNanos.get() / opened, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the longest time it took to open a new connection.
+     * @param unit The unit of the result.
+     * @return the maximum connect latency.
+     */
+    public long getMaxConnectLatency(TimeUnit unit) {
+        return unit.convert(maxConnectNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStatistics{active=" + getActiveConnections()
+                + ", leased=" + getLeasedConnections()
+                + ", idle=" + getIdleConnections()
+                + ", opened=" + getOpenedConnections()
+                + ", reused=" + getReusedConnections()
+                + ", avgConnectMs=" + getAverageConnectLatency(TimeUnit.MILLISECONDS)
+                + "}";
+    }
+
+    void connectionOpened(long connectNanos) {
+        openedConnections.incrementAndGet();
+        totalConnectNanos.addAndGet(connectNanos);
+        long max;
+        do {
+            max = maxConnectNanos.get();
+        } while (connectNanos > max
+                && !maxConnectNanos.compareAndSet(max, connectNanos));
+        leasedConnections.incrementAndGet();
+    }
+
+    void connectionReused() {
+        reusedConnections.incrementAndGet();
+        leasedConnections.incrementAndGet();
+    }
+
+    void connectionReleased() {
+        leasedConnections.decrementAndGet();
+    }
+
+    void idleConnectionAdded() {
+        idleConnections.incrementAndGet();
+    }
+
+    void idleConnectionRemoved() {
+        idleConnections.decrementAndGet();
+    }
+}
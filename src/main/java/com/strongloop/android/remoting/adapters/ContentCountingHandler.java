@@ -0,0 +1,46 @@
+package com.strongloop.android.remoting.adapters;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpMessage;
+
+/**
+ * Counts the response body bytes passing through a channel pipeline.
+ * Installed once in front of the content decompressor and once behind it,
+ * it measures the body size on the wire and after decompression.
+ */
+class ContentCountingHandler extends SimpleChannelUpstreamHandler {
+
+    private final CompressionStatistics statistics;
+    private final boolean compressed;
+
+    ContentCountingHandler(CompressionStatistics statistics,
+                           boolean compressed) {
+        this.statistics = statistics;
+        this.compressed = compressed;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
+            throws Exception {
+        Object message = e.getMessage();
+        ChannelBuffer content = null;
+        if (message instanceof HttpMessage) {
+            content = ((HttpMessage) message).getContent();
+        } else if (message instanceof HttpChunk) {
+            content = ((HttpChunk) message).getContent();
+        }
+        if (content != null) {
+            int bytes = content.readableBytes();
+            if (compressed) {
+                statistics.compressedResponseBodyReceived(bytes);
+            } else {
+                statistics.responseBodyReceived(bytes);
+            }
+        }
+        super.messageReceived(ctx, e);
+    }
+}
@@ -0,0 +1,23 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.IOException;
+
+/**
+ * Signals that the server answered a request with an error status.
+ */
+public class HttpResponseException extends IOException {
+
+    private final int statusCode;
+
+    public HttpResponseException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return the HTTP status code of the response.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,15 @@
+package com.strongloop.android.remoting.adapters;
+
+/**
+ * Receives progress notifications of a transfer of content.
+ */
+public interface ProgressListener {
+    /**
+     * Called as content is transferred. Calls are made from I/O threads
+     * and should return quickly.
+     * @param bytesTransferred The number of bytes transferred so far.
+     * @param totalBytes The total number of bytes, or <code>-1</code> if
+     *                   unknown.
+     */
+    void onProgress(long bytesTransferred, long totalBytes);
+}
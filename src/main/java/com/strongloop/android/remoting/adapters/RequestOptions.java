@@ -0,0 +1,100 @@
+package com.strongloop.android.remoting.adapters;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings that apply to a single request, on top of the settings of the
+ * {@link Adapter} sending it.
+ * <pre>
+ * {@code
+ * RequestOptions options = new RequestOptions();
+ * options.setHeader("Range", "bytes=0-1023");
+ * adapter.invokeStaticMethod("file.get", parameters, options, callback);
+ * }
+ * </pre>
+ */
+public class RequestOptions {
+
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private long timeout;
+    private ListenableFuture<?> cancellation;
+
+    /**
+     * Sets a header sent with the request. It replaces a header of the same
+     * name set on the adapter.
+     * @param name The header name.
+     * @param value The header value, or <code>null</code> to remove it.
+     */
+    public void setHeader(String name, String value) {
+        if (value == null) {
+            headers.remove(name);
+        } else {
+            headers.put(name, value);
+        }
+    }
+
+    /**
+     * @return the headers sent with the request.
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Sets the deadline of the request, counted from the moment it is
+     * made. It covers the time spent waiting in a bulkhead queue, sending
+     * the request and its retries, and receiving the response. When it
+     * passes, the request is cancelled and the callback receives a
+     * {@link RequestTimeoutException}.
+     * @param timeout The timeout in milliseconds, or <code>0</code> to only
+     * apply the timeouts of the adapter.
+     */
+    public void setTimeout(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative");
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the deadline of the request in milliseconds, or
+     * <code>0</code> if not set.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Makes the request abort when <code>future</code> is cancelled, e.g.
+     * the future its callback completes. The connection of the request is
+     * closed, its retries are not sent, and the callback receives a
+     * {@link java.util.concurrent.CancellationException}.
+     * @param future The future, or <code>null</code>.
+     */
+    public void setCancellation(ListenableFuture<?> future) {
+        this.cancellation = future;
+    }
+
+    /**
+     * @return the future whose cancellation aborts the request, or
+     * <code>null</code> if not set.
+     */
+    public ListenableFuture<?> getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * @return a copy of these options with another timeout.
+     */
+    RequestOptions withTimeout(long timeout) {
+        RequestOptions copy = new RequestOptions();
+        copy.headers.putAll(headers);
+        copy.timeout = timeout;
+        copy.cancellation = cancellation;
+        return copy;
+    }
+}
@@ -0,0 +1,19 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request did not complete in time: the connection, a read
+ * or the whole request took longer than configured, or the deadline set
+ * with {@link RequestOptions#setTimeout(long)} passed.
+ */
+public class RequestTimeoutException extends IOException {
+
+    public RequestTimeoutException(String message) {
+        super(message);
+    }
+
+    public RequestTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,523 @@
+package com.strongloop.android.remoting.adapters;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.ning.http.client.Response;
+import com.strongloop.android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded cache of the responses to GET requests sent by a
+ * {@link RestAdapter}.
+ * <p>
+ * Responses are kept when the server sends an <code>ETag</code> or
+ * <code>Last-Modified</code> validator, or allows caching with
+ * <code>Cache-Control: max-age</code>. A fresh entry is served without
+ * contacting the server (a <em>hit</em>). A stale entry is revalidated with
+ * <code>If-None-Match</code> / <code>If-Modified-Since</code>, and served
+ * again when the server answers <code>304 Not Modified</code> (a
+ * <em>revalidation</em>). Every other request is a <em>miss</em>.
+ * <p>
+ * Entries are evicted from memory in least-recently-used order once their
+ * total size exceeds the memory limit. When a directory is configured,
+ * entries are also written there and read back after being evicted from
+ * memory, up to the disk limit. Files on disk are named after a hash of
+ * the request URL and credentials, and never contain them in plaintext.
+ * <p>
+ * A successful POST, PUT or DELETE request invalidates the entries cached
+ * under the path of the model it wrote, e.g. writing
+ * <code>/widgets/1</code> invalidates <code>/widgets</code>,
+ * <code>/widgets/1</code> and <code>/widgets/count</code>.
+ *
+ * @see RestAdapterConfig#setResponseCacheSize(long)
+ */
+public class ResponseCache {
+
+    private static final int DISK_FORMAT_VERSION = 2;
+    private static final int DISK_FILE_NAME_LENGTH = 64;
+
+    private final Cache<String, Entry> memory;
+    private final ConcurrentMap<String, Long> invalidations =
+            new ConcurrentHashMap<String, Long>();
+    private final File directory;
+    private final long maxDiskSize;
+    private final Object diskLock = new Object();
+    private long diskSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    /**
+     * Creates a cache kept in memory only.
+     * @param maxSize The maximum size of the cached bodies, in bytes.
+     */
+    public ResponseCache(long maxSize) {
+        this(maxSize, null, 0);
+    }
+
+    /**
+     * Creates a cache kept in memory and in <code>directory</code>.
+     * @param maxSize The maximum size of the bodies kept in memory, in bytes.
+     * @param directory The directory of the disk tier, or <code>null</code>
+     * to keep entries in memory only.
+     * @param maxDiskSize The maximum size of the disk tier, in bytes.
+     */
+    public ResponseCache(long maxSize, File directory, long maxDiskSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.memory = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher(new Weigher<String, Entry>() {
+                    @Override
+                    public int weigh(String key, Entry entry) {
+                        return key.length() * 2 + entry.getWeight();
+                    }
+                })
+                .build();
+        this.directory = directory;
+        this.maxDiskSize = maxDiskSize;
+
+        if (directory != null) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalArgumentException(
+                        "Cannot create cache directory " + directory);
+            }
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().length() == DISK_FILE_NAME_LENGTH) {
+                        diskSize += file.length();
+                    } else if (!file.delete()) {
+                        // Files of the first format kept the key in plaintext.
+                        Log.getLogger().warning("Cannot delete cache entry " + file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of responses served from the cache without
+     * contacting the server.
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of responses the server confirmed with
+     * <code>304 Not Modified</code> and that were served from the cache.
+     * @return the number of revalidations.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Gets the number of cacheable requests answered with a full response.
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of entries kept in memory.
+     * @return the number of entries.
+     */
+    public long size() {
+        return memory.size();
+    }
+
+    /**
+     * Removes all entries, from memory and from disk.
+     */
+    public void invalidateAll() {
+        memory.invalidateAll();
+        if (directory != null) {
+            synchronized (diskLock) {
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{entries=" + size()
+                + ", hits=" + getHitCount()
+                + ", revalidations=" + getRevalidationCount()
+                + ", misses=" + getMissCount()
+                + "}";
+    }
+
+    Entry get(String key) {
+        Entry entry = memory.getIfPresent(key);
+        if (entry == null && directory != null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        if (entry != null && isInvalidated(key, entry)) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Invalidates the entries stored so far under <code>prefix</code>: the
+     * key equal to it, and the keys continuing it with a path, a query or
+     * credentials.
+     */
+    void invalidate(String prefix) {
+        invalidations.put(prefix, System.currentTimeMillis());
+        for (String key : memory.asMap().keySet()) {
+            if (isUnder(key, prefix)) {
+                memory.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Checks <code>entry</code> against the invalidations, which also cover
+     * the entries on disk.
+     */
+    private boolean isInvalidated(String key, Entry entry) {
+        for (Map.Entry<String, Long> invalidation : invalidations.entrySet()) {
+            if (entry.getStoredAt() <= invalidation.getValue()
+                    && isUnder(key, invalidation.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUnder(String key, String prefix) {
+        if (!key.startsWith(prefix)) {
+            return false;
+        }
+        if (key.length() == prefix.length()) {
+            return true;
+        }
+        char next = key.charAt(prefix.length());
+        return prefix.endsWith("/")
+                || next == '/' || next == '?' || next == ' ';
+    }
+
+    void hit() {
+        hitCount.incrementAndGet();
+    }
+
+    /**
+     * Tells from its headers whether the response to a cacheable request
+     * is worth storing: it may be stored, and is either fresh for a while
+     * or can be revalidated.
+     */
+    static boolean isStorable(String cacheControlHeader, String etag,
+                              String lastModified) {
+        CacheControl cacheControl = new CacheControl(cacheControlHeader);
+        return !cacheControl.noStore
+                && (etag != null || lastModified != null
+                    || cacheControl.maxAge > 0);
+    }
+
+    /**
+     * Stores the full response to a cacheable request.
+     */
+    void store(String key, Response response, String body) {
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        if (!isStorable(response.getHeader("Cache-Control"), etag, lastModified)) {
+            notStored(key);
+            return;
+        }
+        missCount.incrementAndGet();
+        CacheControl cacheControl = new CacheControl(
+                response.getHeader("Cache-Control"));
+        put(key, new Entry(body, etag, lastModified,
+                cacheControl.expiresAt(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Records the response to a cacheable request that is not stored,
+     * dropping the entry it replaces.
+     */
+    void notStored(String key) {
+        missCount.incrementAndGet();
+        remove(key);
+    }
+
+    /**
+     * Refreshes <code>entry</code> after the server confirmed it with a
+     * <code>304 Not Modified</code> response.
+     */
+    Entry revalidated(String key, Entry entry, Response response) {
+        revalidationCount.incrementAndGet();
+        CacheControl cacheControl = new CacheControl(
+                response.getHeader("Cache-Control"));
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        Entry refreshed = new Entry(entry.getBody(),
+                etag != null ? etag : entry.getETag(),
+                lastModified != null ? lastModified : entry.getLastModified(),
+                cacheControl.expiresAt(), System.currentTimeMillis());
+        if (cacheControl.noStore) {
+            remove(key);
+        } else {
+            put(key, refreshed);
+        }
+        return refreshed;
+    }
+
+    private void put(String key, Entry entry) {
+        memory.put(key, entry);
+        if (directory != null) {
+            writeToDisk(key, entry);
+        }
+    }
+
+    private void remove(String key) {
+        memory.invalidate(key);
+        if (directory != null) {
+            synchronized (diskLock) {
+                delete(fileFor(key));
+            }
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, hash(key).toString());
+    }
+
+    private static HashCode hash(String key) {
+        return Hashing.sha256().hashString(key, Charsets.UTF_8);
+    }
+
+    private Entry readFromDisk(String key) {
+        synchronized (diskLock) {
+            File file = fileFor(key);
+            if (!file.isFile()) {
+                return null;
+            }
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new FileInputStream(file));
+                if (in.readInt() != DISK_FORMAT_VERSION) {
+                    return null;
+                }
+                // Only a hash of the key is stored, the key holds credentials.
+                HashCode keyHash = hash(key);
+                byte[] storedHash = new byte[keyHash.bits() / 8];
+                in.readFully(storedHash);
+                if (!Arrays.equals(storedHash, keyHash.asBytes())) {
+                    return null;
+                }
+                Entry entry = new Entry(readString(in), readString(in),
+                        readString(in), in.readLong(), in.readLong());
+                // The modification time orders entries for eviction.
+                file.setLastModified(System.currentTimeMillis());
+                return entry;
+            } catch (IOException e) {
+                Log.getLogger().warning("Cannot read cache entry "
+                        + file + ": " + e.getMessage());
+                return null;
+            } finally {
+                closeQuietly(in);
+            }
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        synchronized (diskLock) {
+            File file = fileFor(key);
+            diskSize -= file.length();
+            DataOutputStream out = null;
+            try {
+                out = new DataOutputStream(new FileOutputStream(file));
+                out.writeInt(DISK_FORMAT_VERSION);
+                out.write(hash(key).asBytes());
+                writeString(out, entry.getBody());
+                writeString(out, entry.getETag());
+                writeString(out, entry.getLastModified());
+                out.writeLong(entry.getExpiresAt());
+                out.writeLong(entry.getStoredAt());
+                out.close();
+                out = null;
+            } catch (IOException e) {
+                Log.getLogger().warning("Cannot write cache entry "
+                        + file + ": " + e.getMessage());
+                closeQuietly(out);
+                delete(file);
+                return;
+            }
+            diskSize += file.length();
+            if (diskSize > maxDiskSize) {
+                trimDisk();
+            }
+        }
+    }
+
+    private void trimDisk() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (File file : files) {
+            if (diskSize <= maxDiskSize) {
+                break;
+            }
+            delete(file);
+        }
+    }
+
+    private void delete(File file) {
+        long length = file.length();
+        if (file.delete()) {
+            diskSize -= length;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(Charsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Ignored.
+            }
+        }
+    }
+
+    /**
+     * A cached response body along with its validators.
+     */
+    static class Entry {
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAt;
+        private final long storedAt;
+
+        Entry(String body, String etag, String lastModified, long expiresAt,
+              long storedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+            this.storedAt = storedAt;
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        long getExpiresAt() {
+            return expiresAt;
+        }
+
+        long getStoredAt() {
+            return storedAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+
+        int getWeight() {
+            return body.length() * 2 + 64;
+        }
+    }
+
+    private static class CacheControl {
+        boolean noStore;
+        long maxAge = -1;
+
+        CacheControl(String header) {
+            if (header == null) {
+                return;
+            }
+            for (String directive : header.split(",")) {
+                directive = directive.trim().toLowerCase();
+                if (directive.equals("no-store")) {
+                    noStore = true;
+                } else if (directive.equals("no-cache")) {
+                    maxAge = 0;
+                } else if (directive.startsWith("max-age=") && maxAge != 0) {
+                    try {
+                        maxAge = Long.parseLong(directive.substring(8));
+                    } catch (NumberFormatException e) {
+                        maxAge = 0;
+                    }
+                }
+            }
+        }
+
+        long expiresAt() {
+            return maxAge > 0 ? System.currentTimeMillis() + maxAge * 1000 : 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An {@link InputStream} over a binary response body that is being
+ * downloaded. Pass it as the callback of a binary request and read it from
+ * another thread while the body arrives.
+ * <p>
+ * At most <code>capacity</code> body parts are buffered. When the reader
+ * falls behind, the I/O thread delivering the body waits, so the stream
+ * must be read promptly and always closed.
+ */
+public class ResponseInputStream extends InputStream
+        implements Adapter.BinaryStreamCallback {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> parts;
+    private volatile boolean closed;
+    private byte[] current;
+    private int position;
+    private boolean finished;
+
+    public ResponseInputStream() {
+        this(16);
+    }
+
+    /**
+     * @param capacity The maximum number of body parts to buffer.
+     */
+    public ResponseInputStream(int capacity) {
+        parts = new LinkedBlockingQueue<Object>(capacity);
+    }
+
+    @Override
+    public void onStart(int statusCode, Map<String, String> headers) {
+    }
+
+    @Override
+    public void onBodyPart(ByteBuffer bodyPart) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        byte[] bytes = new byte[bodyPart.remaining()];
+        bodyPart.get(bytes);
+        put(bytes);
+    }
+
+    @Override
+    public void onComplete() {
+        offer(END);
+    }
+
+    @Override
+    public void onSuccess(byte[] body, String contentType) {
+        offer(body);
+        offer(END);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        offer(t);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.length - position : 0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        parts.clear();
+    }
+
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || position == current.length) {
+            if (finished) {
+                return false;
+            }
+            Object part;
+            try {
+                part = parts.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (part == END) {
+                finished = true;
+            } else if (part instanceof Throwable) {
+                finished = true;
+                throw part instanceof IOException
+                        ? (IOException) part
+                        : new IOException((Throwable) part);
+            } else {
+                current = (byte[]) part;
+                position = 0;
+            }
+        }
+        return true;
+    }
+
+    private void put(Object part) throws IOException {
+        try {
+            parts.put(part);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void offer(Object part) {
+        if (!closed) {
+            try {
+                put(part);
+            } catch (IOException e) {
+                // Interrupted, the reader is gone.
+            }
+        }
+    }
+}
@@ -3,15 +3,54 @@
 package com.strongloop.android.remoting.adapters;
 
 import com.ning.http.client.*;
+import com.ning.http.client.generators.InputStreamBodyGenerator;
 import com.ning.http.client.multipart.FilePart;
+import com.ning.http.client.providers.netty.NettyAsyncHttpProviderConfig;
+import com.ning.http.client.providers.netty.NettyAsyncHttpProviderConfig.AdditionalPipelineInitializer;
+import com.ning.http.client.providers.netty.channel.pool.DefaultChannelPool;
+import com.google.common.math.LongMath;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.strongloop.android.remoting.JsonUtil;
 import com.strongloop.android.util.Log;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ConnectTimeoutException;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
 import org.json.JSONException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A specific {@link Adapter} implementation for RESTful servers.
@@ -27,11 +66,66 @@ public class RestAdapter extends Adapter {
     private static final String TAG = "remoting.RestAdapter";
 
     private HttpClient client;
-    private RestContract contract;
+    private volatile RestContract contract;
+    private RestAdapterConfig config;
+    private final ResponseCache responseCache;
+    private final ConcurrentMap<String, InFlightRequest> inFlightRequests =
+            new ConcurrentHashMap<String, InFlightRequest>();
+    private final RetryBudget retryBudget;
+    private final Random random = new Random();
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers =
+            new ConcurrentHashMap<String, CircuitBreaker>();
+    private final Map<String, Bulkhead> bulkheads =
+            new LinkedHashMap<String, Bulkhead>();
+    private final Map<String, Bulkhead> bulkheadsByMethod =
+            new HashMap<String, Bulkhead>();
+    private final Map<Pattern, Bulkhead> bulkheadsByPattern =
+            new LinkedHashMap<Pattern, Bulkhead>();
 
     public RestAdapter(String url) {
-        super(url);
+        this(url, new RestAdapterConfig());
+    }
+
+    /**
+     * Creates a new adapter connected to <code>url</code>, using an HTTP
+     * client tuned by <code>config</code>.
+     *
+     * @param url    The URL to connect to.
+     * @param config The HTTP client configuration.
+     */
+    public RestAdapter(String url, RestAdapterConfig config) {
+        super(null);
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.config = config;
         this.contract = new RestContract();
+        this.responseCache = config.getResponseCacheSize() >= 0
+                ? new ResponseCache(config.getResponseCacheSize(),
+                        config.getResponseCacheDirectory(),
+                        config.getResponseCacheDiskSize())
+                : null;
+        RetryPolicy retryPolicy = config.getRetryPolicy() != null
+                ? config.getRetryPolicy() : new RetryPolicy();
+        this.retryBudget = new RetryBudget(retryPolicy.getBudgetRatio(),
+                retryPolicy.getBudgetReserve());
+        for (Map.Entry<String, BulkheadPolicy> entry
+                : config.getBulkheadPolicies().entrySet()) {
+            bulkheads.put(entry.getKey(),
+                    new Bulkhead(entry.getKey(), entry.getValue(), this));
+        }
+        for (Map.Entry<String, String> entry
+                : config.getBulkheadMethods().entrySet()) {
+            String method = entry.getKey();
+            Bulkhead bulkhead = bulkheads.get(entry.getValue());
+            if (method.indexOf('*') < 0) {
+                bulkheadsByMethod.put(method, bulkhead);
+            } else {
+                bulkheadsByPattern.put(Pattern.compile(Pattern.quote(method)
+                        .replace("*", "\\E.*\\Q")), bulkhead);
+            }
+        }
+        connect(url);
     }
 
     /**
@@ -44,6 +138,79 @@ public class RestAdapter extends Adapter {
         return contract;
     }
 
+    /**
+     * Gets the configuration used to create the underlying HTTP client.
+     *
+     * @return the config.
+     */
+    public RestAdapterConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the statistics of the connection pool of the underlying HTTP
+     * client.
+     *
+     * @return the statistics, or <code>null</code> if not connected.
+     */
+    public ConnectionPoolStatistics getPoolStatistics() {
+        HttpClient client = this.client;
+        return client != null ? client.getPoolStatistics() : null;
+    }
+
+    /**
+     * Gets the compression statistics of the underlying HTTP client.
+     *
+     * @return the statistics, or <code>null</code> if not connected.
+     */
+    public CompressionStatistics getCompressionStatistics() {
+        HttpClient client = this.client;
+        return client != null ? client.getCompressionStatistics() : null;
+    }
+
+    /**
+     * Gets the cache of responses to GET requests.
+     *
+     * @return the cache, or <code>null</code> if responses are not cached
+     * (see {@link RestAdapterConfig#setResponseCacheSize(long)}).
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Gets the budget limiting the retries of failed requests, along with
+     * the number of retries sent.
+     *
+     * @return the budget.
+     * @see RestAdapterConfig#setRetryPolicy(RetryPolicy)
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Gets the circuit breakers created so far, by name: the contract
+     * method or the host they guard.
+     *
+     * @return the circuit breakers, empty if none is configured
+     * (see {@link RestAdapterConfig#setCircuitBreakerPolicy(CircuitBreakerPolicy)}).
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    /**
+     * Gets the bulkheads limiting the requests of groups of methods, by
+     * group name.
+     *
+     * @return the bulkheads, empty if none is configured
+     * (see {@link RestAdapterConfig#addBulkhead(String, BulkheadPolicy, String...)}).
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
     /**
      * Get the underlying HTTP client. This allows subclasses to add
      * custom headers like Authorization.
@@ -64,16 +231,34 @@ public class RestAdapter extends Adapter {
         this.contract = contract;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The client of the previous URL is closed, so its requests still in
+     * flight fail.
+     */
     @Override
     public void connect(String url) {
+        HttpClient previous = client;
         if (url == null) {
             client = null;
         } else {
-            client = new HttpClient(url);
+            client = new HttpClient(url, config);
 
             // TODO: Find way to set these headers globally
             //client.addHeader("Accept", "application/json");
         }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Disconnects this adapter, releasing the threads and connections of
+     * its HTTP client. Same as <code>connect(null)</code>.
+     */
+    public void close() {
+        connect(null);
     }
 
     @Override
@@ -92,8 +277,23 @@ public class RestAdapter extends Adapter {
     public void invokeStaticMethod(String method,
                                    Map<String, ? extends Object> parameters,
                                    final Callback callback) {
+        invokeStaticMethod(method, parameters, null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   Callback callback) {
         AsyncCompletionHandler<Response> httpHandler = new CallbackHandler(callback);
-        invokeStaticMethod(method, parameters, httpHandler);
+        invokeStaticMethod(method, parameters, options, httpHandler);
     }
 
     /**
@@ -107,119 +307,1068 @@ public class RestAdapter extends Adapter {
     public void invokeStaticMethod(String method,
                                    Map<String, ? extends Object> parameters,
                                    final BinaryCallback callback) {
-        AsyncCompletionHandler<Response> httpHandler = new BinaryHandler(callback);
-        invokeStaticMethod(method, parameters, httpHandler);
+        invokeStaticMethod(method, parameters, null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeStaticMethod(String method,
+                                   Map<String, ? extends Object> parameters,
+                                   RequestOptions options,
+                                   BinaryCallback callback) {
+        AsyncCompletionHandler<Response> httpHandler = createBinaryHandler(callback);
+        invokeStaticMethod(method, parameters, options, httpHandler);
     }
 
     private void invokeStaticMethod(String method,
                                     Map<String, ? extends Object> parameters,
+                                    RequestOptions options,
                                     AsyncCompletionHandler<Response> httpHandler) {
+        RestContract contract = this.contract;
+        if (contract == null) {
+            throw new IllegalStateException("Invalid contract");
+        }
+
+        RestContractItem item = contract.getItemForMethod(method);
+        String path = item.buildUrl(parameters);
+
+        request(method, path, item.getVerb(), parameters,
+                item.getParameterEncoding(), options, item.getRetryPolicy(),
+                httpHandler);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     final Callback callback) {
+        invokeInstanceMethod(method, constructorParameters, parameters, null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     RequestOptions options,
+                                     Callback callback) {
+        AsyncCompletionHandler<Response> httpHandler = new CallbackHandler(callback);
+        invokeInstanceMethod(method, constructorParameters, parameters, options,
+                httpHandler);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     final BinaryCallback callback) {
+        invokeInstanceMethod(method, constructorParameters, parameters, null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the contract is not set
+     *                               (see {@link #setContract(RestContract)})
+     *                               or the adapter is not connected.
+     */
+    @Override
+    public void invokeInstanceMethod(String method,
+                                     Map<String, ? extends Object> constructorParameters,
+                                     Map<String, ? extends Object> parameters,
+                                     RequestOptions options,
+                                     BinaryCallback callback) {
+        AsyncCompletionHandler<Response> httpHandler = createBinaryHandler(callback);
+        invokeInstanceMethod(method, constructorParameters, parameters, options,
+                httpHandler);
+    }
+
+    private void invokeInstanceMethod(String method,
+                                      Map<String, ? extends Object> constructorParameters,
+                                      Map<String, ? extends Object> parameters,
+                                      RequestOptions options,
+                                      AsyncCompletionHandler<Response> httpHandler) {
+        RestContract contract = this.contract;
         if (contract == null) {
             throw new IllegalStateException("Invalid contract");
         }
-
-        String verb = contract.getVerbForMethod(method);
-        String path = contract.getUrlForMethod(method, parameters);
-        ParameterEncoding parameterEncoding = contract.getParameterEncodingForMethod(method);
-
-        request(path, verb, parameters, parameterEncoding, httpHandler);
+
+        Map<String, Object> combinedParameters = new HashMap<String, Object>();
+        if (constructorParameters != null) {
+            combinedParameters.putAll(constructorParameters);
+        }
+        if (parameters != null) {
+            combinedParameters.putAll(parameters);
+        }
+
+        RestContractItem item = contract.getItemForMethod(method);
+        String path = item.buildUrl(combinedParameters);
+
+        request(method, path, item.getVerb(), combinedParameters,
+                item.getParameterEncoding(), options, item.getRetryPolicy(),
+                httpHandler);
+    }
+
+    private void request(final String method,
+                         String path,
+                         final String verb,
+                         Map<String, ? extends Object> parameters,
+                         final ParameterEncoding parameterEncoding,
+                         RequestOptions options,
+                         RetryPolicy retryPolicy,
+                         final AsyncCompletionHandler<Response> responseHandler) {
+
+        if (!isConnected()) {
+            throw new IllegalStateException("Adapter not connected");
+        }
+
+        HttpClient client = this.client;
+        if ("GET".equalsIgnoreCase(verb)
+                && responseHandler instanceof CallbackHandler) {
+            CallbackHandler handler = (CallbackHandler) responseHandler;
+            String key = null;
+            ResponseCache.Entry entry = null;
+            if (responseCache != null && !hasConditionalHeaders(options)) {
+                key = client.getCacheKey(path, parameters, options);
+                entry = responseCache.get(key);
+                if (entry != null && entry.isFresh()) {
+                    responseCache.hit();
+                    // Called back on the same threads as a response.
+                    final CallbackHandler hitHandler = handler;
+                    final String body = entry.getBody();
+                    client.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            hitHandler.onCachedResponse(body);
+                        }
+                    });
+                    return;
+                }
+                handler.setCacheEntry(key, entry);
+            }
+            if (config.isRequestCoalescingEnabled() && isShareable(options)) {
+                if (key == null) {
+                    key = client.getCacheKey(path, parameters, options);
+                }
+                if (!lead(key, handler)) {
+                    return;
+                }
+            }
+            if (entry != null && entry.hasValidator()) {
+                RequestOptions conditional = options != null
+                        ? options.withTimeout(options.getTimeout())
+                        : new RequestOptions();
+                conditional.setHeader("If-None-Match", entry.getETag());
+                conditional.setHeader("If-Modified-Since", entry.getLastModified());
+                options = conditional;
+            }
+        }
+
+        final long deadlineNanos = options != null && options.getTimeout() > 0
+                ? System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(options.getTimeout())
+                : 0;
+
+        final Bulkhead bulkhead = getBulkhead(method);
+        if (bulkhead == null) {
+            send(method, client, path, verb, parameters, parameterEncoding,
+                    options, retryPolicy, deadlineNanos, responseHandler, null);
+            return;
+        }
+
+        final HttpClient sendClient = client;
+        final String sendPath = path;
+        final Map<String, ? extends Object> sendParameters = parameters;
+        final RequestOptions sendOptions = options;
+        final RetryPolicy sendRetryPolicy = retryPolicy;
+        final Runnable queuedSend = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    send(method, sendClient, sendPath, verb, sendParameters,
+                            parameterEncoding, sendOptions, sendRetryPolicy,
+                            deadlineNanos, responseHandler, bulkhead);
+                } catch (RuntimeException e) {
+                    // Nobody is waiting for the exception any more.
+                    responseHandler.onThrowable(e);
+                }
+            }
+        };
+        switch (bulkhead.admit(queuedSend)) {
+            case STARTED:
+                send(method, client, path, verb, parameters, parameterEncoding,
+                        options, retryPolicy, deadlineNanos, responseHandler,
+                        bulkhead);
+                break;
+            case QUEUED:
+                if (deadlineNanos != 0) {
+                    // Don't keep the caller waiting in the queue past the
+                    // deadline.
+                    final long timeout = options.getTimeout();
+                    client.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (bulkhead.remove(queuedSend)) {
+                                responseHandler.onThrowable(new RequestTimeoutException(
+                                        "Request timed out after " + timeout
+                                        + " ms in the queue of bulkhead "
+                                        + bulkhead.getName()));
+                            }
+                        }
+                    }, remainingMillis(deadlineNanos));
+                }
+                break;
+            case REJECTED:
+                responseHandler.onThrowable(
+                        new BulkheadFullException(bulkhead.getName()));
+                break;
+        }
+    }
+
+    /**
+     * Sends a request let through by its bulkhead, if any.
+     */
+    private void send(String method,
+                      HttpClient client,
+                      String path,
+                      String verb,
+                      Map<String, ? extends Object> parameters,
+                      ParameterEncoding parameterEncoding,
+                      RequestOptions options,
+                      RetryPolicy retryPolicy,
+                      long deadlineNanos,
+                      AsyncCompletionHandler<Response> responseHandler,
+                      Bulkhead bulkhead) {
+        AsyncHandler<Response> handler = new TimeoutHandler(responseHandler);
+        if (responseCache != null && !"GET".equalsIgnoreCase(verb)
+                && !"HEAD".equalsIgnoreCase(verb)) {
+            handler = new CacheInvalidatingHandler(responseCache,
+                    client.getCachePrefix(path), handler);
+        }
+        BulkheadHandler bulkheadHandler = null;
+        if (bulkhead != null) {
+            bulkheadHandler = new BulkheadHandler(bulkhead, handler);
+            handler = bulkheadHandler;
+        }
+
+        if (deadlineNanos != 0) {
+            long remaining = remainingMillis(deadlineNanos);
+            if (remaining <= 0) {
+                handler.onThrowable(new RequestTimeoutException(
+                        "Request timed out after " + options.getTimeout()
+                        + " ms before it was sent"));
+                return;
+            }
+            options = options.withTimeout(remaining);
+        }
+
+        CircuitBreaker circuitBreaker = getCircuitBreaker(method, client);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            handler.onThrowable(
+                    new CircuitOpenException(circuitBreaker.getName()));
+            return;
+        }
+
+        if (retryPolicy == null) {
+            retryPolicy = config.getRetryPolicy();
+        }
+        if (retryPolicy != null && retryPolicy.appliesTo(verb, parameterEncoding)) {
+            retryBudget.deposit();
+            handler = new RetryingHandler(client, verb, path, parameters,
+                    parameterEncoding, options, retryPolicy, deadlineNanos,
+                    circuitBreaker, handler);
+        }
+
+        // The breaker records every attempt, the retries acquire it again.
+        CircuitBreakerHandler circuitBreakerHandler = null;
+        if (circuitBreaker != null) {
+            circuitBreakerHandler = new CircuitBreakerHandler(circuitBreaker, handler);
+            handler = circuitBreakerHandler;
+        }
+
+        try {
+            client.request(verb, path, parameters, parameterEncoding, options,
+                    handler);
+        } catch (RuntimeException e) {
+            if (circuitBreakerHandler != null) {
+                circuitBreakerHandler.onResult(true);
+            }
+            if (bulkheadHandler != null) {
+                bulkheadHandler.release();
+            }
+            if (responseHandler instanceof CallbackHandler) {
+                // Release the requests waiting for this one.
+                for (CallbackHandler follower
+                        : ((CallbackHandler) responseHandler).completeInFlightRequest()) {
+                    follower.callback.onError(e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the milliseconds left until <code>deadlineNanos</code>.
+     */
+    private static long remainingMillis(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Gets the bulkhead limiting <code>method</code>. A bulkhead registered
+     * for the method name wins over one registered with a wildcard.
+     * @return the bulkhead, or <code>null</code> if the method is not
+     * limited.
+     */
+    private Bulkhead getBulkhead(String method) {
+        Bulkhead bulkhead = bulkheadsByMethod.get(method);
+        if (bulkhead == null) {
+            for (Map.Entry<Pattern, Bulkhead> entry : bulkheadsByPattern.entrySet()) {
+                if (entry.getKey().matcher(method).matches()) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Gets the circuit breaker guarding <code>method</code>, creating it on
+     * first use.
+     * @return the circuit breaker, or <code>null</code> if none is
+     * configured.
+     */
+    private CircuitBreaker getCircuitBreaker(String method, HttpClient client) {
+        CircuitBreakerPolicy policy = config.getCircuitBreakerPolicy();
+        if (policy == null) {
+            return null;
+        }
+        String name = policy.getScope() == CircuitBreakerPolicy.Scope.HOST
+                ? URI.create(client.getBaseUrl()).getAuthority() : method;
+        CircuitBreaker circuitBreaker = circuitBreakers.get(name);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(name, policy);
+            CircuitBreaker existing = circuitBreakers.putIfAbsent(name, circuitBreaker);
+            if (existing != null) {
+                circuitBreaker = existing;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * Either makes <code>handler</code> wait for the identical request in
+     * flight, or registers its request as the one in flight.
+     * @return <code>true</code> if <code>handler</code> must send the request.
+     */
+    private boolean lead(String key, CallbackHandler handler) {
+        InFlightRequest request = new InFlightRequest(key);
+        while (true) {
+            InFlightRequest inFlight = inFlightRequests.putIfAbsent(key, request);
+            if (inFlight == null) {
+                handler.setInFlightRequest(request);
+                return true;
+            }
+            if (inFlight.join(handler)) {
+                return false;
+            }
+            // The request completed meanwhile, its entry is about to go.
+            inFlightRequests.remove(key, inFlight);
+        }
+    }
+
+    private static boolean isShareable(RequestOptions options) {
+        if (options == null) {
+            return true;
+        }
+        if (options.getTimeout() > 0 || options.getCancellation() != null) {
+            // The deadline or the cancellation of the request would apply
+            // to the others too.
+            return false;
+        }
+        for (String header : options.getHeaders().keySet()) {
+            if (!header.equalsIgnoreCase("Authorization")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasConditionalHeaders(RequestOptions options) {
+        if (options == null) {
+            return false;
+        }
+        for (String header : options.getHeaders().keySet()) {
+            if (header.regionMatches(true, 0, "If-", 0, 3)
+                    || header.equalsIgnoreCase("Range")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends a request again, after a backoff, when it fails in a way
+     * allowed by its {@link RetryPolicy}. Only the final attempt reaches the
+     * wrapped handler, so a retried response is never half-delivered. Each
+     * attempt is let through and recorded by the circuit breaker, if any.
+     */
+    class RetryingHandler extends ForwardingHandler {
+        private final HttpClient client;
+        private final String verb;
+        private final String path;
+        private final Map<String, ? extends Object> parameters;
+        private final ParameterEncoding parameterEncoding;
+        private final RequestOptions options;
+        private final RetryPolicy policy;
+        private final long deadlineNanos;
+        private final CircuitBreaker circuitBreaker;
+
+        private volatile int attempt = 1;
+        // The status of a response held back until its headers tell
+        // whether it is retried.
+        private volatile HttpResponseStatus heldStatus;
+        private volatile boolean delivering;
+        private volatile long retryDelay = -1;
+
+        RetryingHandler(HttpClient client,
+                        String verb,
+                        String path,
+                        Map<String, ? extends Object> parameters,
+                        ParameterEncoding parameterEncoding,
+                        RequestOptions options,
+                        RetryPolicy policy,
+                        long deadlineNanos,
+                        CircuitBreaker circuitBreaker,
+                        AsyncHandler<Response> delegate) {
+            super(delegate);
+            this.client = client;
+            this.verb = verb;
+            this.path = path;
+            this.parameters = parameters;
+            this.parameterEncoding = parameterEncoding;
+            this.options = options;
+            this.policy = policy;
+            this.deadlineNanos = deadlineNanos;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            if (attempt < policy.getMaxAttempts()
+                    && RetryPolicy.isRetryableStatus(status.getStatusCode())) {
+                heldStatus = status;
+                return STATE.CONTINUE;
+            }
+            delivering = true;
+            return delegate.onStatusReceived(status);
+        }
+
+        @Override
+        public STATE onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            HttpResponseStatus status = heldStatus;
+            if (status != null) {
+                heldStatus = null;
+                long retryAfter = parseRetryAfter(
+                        headers.getHeaders().getFirstValue("Retry-After"));
+                long delay = getRetryDelay(retryAfter, "HTTP " + status.getStatusCode());
+                if (delay >= 0) {
+                    retryDelay = delay;
+                    return STATE.ABORT;
+                }
+                delivering = true;
+                if (delegate.onStatusReceived(status) != STATE.CONTINUE) {
+                    return STATE.ABORT;
+                }
+            }
+            return delegate.onHeadersReceived(headers);
+        }
+
+        @Override
+        public STATE onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            if (!delivering) {
+                return STATE.ABORT;
+            }
+            return delegate.onBodyPartReceived(bodyPart);
+        }
+
+        @Override
+        public Response onCompleted() throws Exception {
+            if (retryDelay >= 0) {
+                scheduleRetry();
+                return null;
+            }
+            return delegate.onCompleted();
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            if (retryDelay < 0 && !delivering && isRetryableFailure(t)) {
+                retryDelay = getRetryDelay(-1, t.toString());
+            }
+            if (retryDelay >= 0) {
+                scheduleRetry();
+            } else {
+                delegate.onThrowable(t);
+            }
+        }
+
+        /**
+         * @return the delay before the attempt following the one that just
+         * failed, or <code>-1</code> if it must not be retried.
+         */
+        private long getRetryDelay(long retryAfter, String reason) {
+            if (attempt >= policy.getMaxAttempts()) {
+                return -1;
+            }
+            if (retryAfter > policy.getMaxBackoff()) {
+                Log.getLogger().info("Not retrying " + verb + " " + path
+                        + ", the server asked to wait " + retryAfter + " ms");
+                return -1;
+            }
+            long delay = retryAfter >= 0
+                    ? retryAfter : policy.getBackoff(attempt, random);
+            if (deadlineNanos != 0 && remainingMillis(deadlineNanos) <= delay) {
+                Log.getLogger().info("Not retrying " + verb + " " + path
+                        + ", the deadline would pass");
+                return -1;
+            }
+            if (!retryBudget.withdraw()) {
+                Log.getLogger().warning("Not retrying " + verb + " " + path
+                        + ", the retry budget is exhausted");
+                return -1;
+            }
+            Log.getLogger().warning("Retrying " + verb + " " + path
+                    + " (attempt " + (attempt + 1) + " of "
+                    + policy.getMaxAttempts() + ") after " + reason);
+            return delay;
+        }
+
+        private void scheduleRetry() {
+            long delay = retryDelay;
+            retryDelay = -1;
+            delivering = false;
+            attempt++;
+            onRetry();
+            try {
+                client.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        RequestOptions attemptOptions = options;
+                        if (deadlineNanos != 0) {
+                            long remaining = remainingMillis(deadlineNanos);
+                            if (remaining <= 0) {
+                                delegate.onThrowable(new RequestTimeoutException(
+                                        "Request timed out before attempt " + attempt));
+                                return;
+                            }
+                            attemptOptions = options.withTimeout(remaining);
+                        }
+                        AsyncHandler<Response> attemptHandler = RetryingHandler.this;
+                        CircuitBreakerHandler circuitBreakerHandler = null;
+                        if (circuitBreaker != null) {
+                            if (!circuitBreaker.tryAcquire()) {
+                                delegate.onThrowable(new CircuitOpenException(
+                                        circuitBreaker.getName()));
+                                return;
+                            }
+                            circuitBreakerHandler = new CircuitBreakerHandler(
+                                    circuitBreaker, attemptHandler);
+                            attemptHandler = circuitBreakerHandler;
+                        }
+                        try {
+                            client.request(verb, path, parameters,
+                                    parameterEncoding, attemptOptions,
+                                    attemptHandler);
+                        } catch (RuntimeException e) {
+                            if (circuitBreakerHandler != null) {
+                                circuitBreakerHandler.onResult(true);
+                            }
+                            delegate.onThrowable(e);
+                        }
+                    }
+                }, delay);
+            } catch (RuntimeException e) {
+                // The client was closed meanwhile.
+                delegate.onThrowable(e);
+            }
+        }
+    }
+
+    /**
+     * Calls the circuit breaker back with the outcome of a request.
+     */
+    static class CircuitBreakerHandler extends ForwardingHandler {
+        private final CircuitBreaker circuitBreaker;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private volatile int statusCode;
+
+        CircuitBreakerHandler(CircuitBreaker circuitBreaker,
+                              AsyncHandler<Response> delegate) {
+            super(delegate);
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            statusCode = status.getStatusCode();
+            return super.onStatusReceived(status);
+        }
+
+        @Override
+        public Response onCompleted() throws Exception {
+            // Client errors are the caller's fault, not the backend's.
+            onResult(statusCode == 0 || statusCode >= 500);
+            return super.onCompleted();
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            onResult(true);
+            super.onThrowable(t);
+        }
+
+        void onResult(boolean failed) {
+            if (recorded.compareAndSet(false, true)) {
+                circuitBreaker.onResult(failed, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cached responses under the path of a model once a
+     * request writing it succeeded.
+     */
+    static class CacheInvalidatingHandler extends ForwardingHandler {
+        private final ResponseCache responseCache;
+        private final String prefix;
+        private volatile int statusCode;
+
+        CacheInvalidatingHandler(ResponseCache responseCache, String prefix,
+                                 AsyncHandler<Response> delegate) {
+            super(delegate);
+            this.responseCache = responseCache;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            statusCode = status.getStatusCode();
+            return super.onStatusReceived(status);
+        }
+
+        @Override
+        public Response onCompleted() throws Exception {
+            // Before the callback runs, so that it reads its own write.
+            if (statusCode >= 200 && statusCode < 300) {
+                responseCache.invalidate(prefix);
+            }
+            return super.onCompleted();
+        }
+    }
+
+    /**
+     * Reports all the timeouts of a request as a
+     * {@link RequestTimeoutException}.
+     */
+    static class TimeoutHandler extends ForwardingHandler {
+
+        TimeoutHandler(AsyncHandler<Response> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            if (!(t instanceof RequestTimeoutException) && isTimeout(t)) {
+                t = new RequestTimeoutException(t.getMessage(), t);
+            }
+            super.onThrowable(t);
+        }
+
+        private static boolean isTimeout(Throwable t) {
+            for (int i = 0; t != null && i < 3; i++, t = t.getCause()) {
+                if (t instanceof TimeoutException
+                        || t instanceof SocketTimeoutException
+                        || t instanceof ConnectTimeoutException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Frees the slot of a request in its bulkhead once it completed.
+     */
+    static class BulkheadHandler extends ForwardingHandler {
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        BulkheadHandler(Bulkhead bulkhead, AsyncHandler<Response> delegate) {
+            super(delegate);
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Response onCompleted() throws Exception {
+            try {
+                return super.onCompleted();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            try {
+                super.onThrowable(t);
+            } finally {
+                release();
+            }
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * Passes all the events of a request on to another handler.
+     */
+    static class ForwardingHandler implements AsyncHandler<Response>,
+            AsyncHandlerExtensions {
+        final AsyncHandler<Response> delegate;
+        private final AsyncHandlerExtensions extensions;
+
+        ForwardingHandler(AsyncHandler<Response> delegate) {
+            this.delegate = delegate;
+            this.extensions = delegate instanceof AsyncHandlerExtensions
+                    ? (AsyncHandlerExtensions) delegate : null;
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            return delegate.onStatusReceived(status);
+        }
+
+        @Override
+        public STATE onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            return delegate.onHeadersReceived(headers);
+        }
+
+        @Override
+        public STATE onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            return delegate.onBodyPartReceived(bodyPart);
+        }
+
+        @Override
+        public Response onCompleted() throws Exception {
+            return delegate.onCompleted();
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            delegate.onThrowable(t);
+        }
+
+        @Override
+        public void onOpenConnection() {
+            if (extensions != null) {
+                extensions.onOpenConnection();
+            }
+        }
+
+        @Override
+        public void onConnectionOpen() {
+            if (extensions != null) {
+                extensions.onConnectionOpen();
+            }
+        }
+
+        @Override
+        public void onPoolConnection() {
+            if (extensions != null) {
+                extensions.onPoolConnection();
+            }
+        }
+
+        @Override
+        public void onConnectionPooled() {
+            if (extensions != null) {
+                extensions.onConnectionPooled();
+            }
+        }
+
+        @Override
+        public void onSendRequest(Object request) {
+            if (extensions != null) {
+                extensions.onSendRequest(request);
+            }
+        }
+
+        @Override
+        public void onRetry() {
+            if (extensions != null) {
+                extensions.onRetry();
+            }
+        }
+
+        @Override
+        public void onDnsResolved() {
+            if (extensions != null) {
+                extensions.onDnsResolved();
+            }
+        }
+
+        @Override
+        public void onSslHandshakeCompleted() {
+            if (extensions != null) {
+                extensions.onSslHandshakeCompleted();
+            }
+        }
     }
 
-    /**
-     * {@inheritDoc}
-     *
-     * @throws IllegalStateException if the contract is not set
-     *                               (see {@link #setContract(RestContract)})
-     *                               or the adapter is not connected.
-     */
-    @Override
-    public void invokeInstanceMethod(String method,
-                                     Map<String, ? extends Object> constructorParameters,
-                                     Map<String, ? extends Object> parameters,
-                                     final Callback callback) {
-        AsyncCompletionHandler<Response> httpHandler = new CallbackHandler(callback);
-        invokeInstanceMethod(method, constructorParameters, parameters, httpHandler);
+    private static boolean isRetryableFailure(Throwable t) {
+        for (int i = 0; t != null && i < 3; i++, t = t.getCause()) {
+            if (t instanceof ConnectException
+                    || t instanceof SocketTimeoutException
+                    || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * {@inheritDoc}
-     *
-     * @throws IllegalStateException if the contract is not set
-     *                               (see {@link #setContract(RestContract)})
-     *                               or the adapter is not connected.
+     * Parses a <code>Retry-After</code> header, either a number of seconds
+     * or an HTTP date.
+     * @return the delay in milliseconds, or <code>-1</code> if absent.
      */
-    @Override
-    public void invokeInstanceMethod(String method,
-                                     Map<String, ? extends Object> constructorParameters,
-                                     Map<String, ? extends Object> parameters,
-                                     final BinaryCallback callback) {
-        AsyncCompletionHandler<Response> httpHandler = new BinaryHandler(callback);
-        invokeInstanceMethod(method, constructorParameters, parameters, httpHandler);
+    private static long parseRetryAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        value = value.trim();
+        long seconds = -1;
+        try {
+            seconds = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try a date.
+        }
+        if (seconds >= 0) {
+            try {
+                return LongMath.checkedMultiply(seconds, 1000);
+            } catch (ArithmeticException e) {
+                // Longer than any backoff, the retry is never sent.
+                return Long.MAX_VALUE;
+            }
+        } else if (value.startsWith("-")) {
+            return 0;
+        }
+        SimpleDateFormat format =
+                new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        try {
+            return Math.max(0,
+                    format.parse(value).getTime() - System.currentTimeMillis());
+        } catch (ParseException e) {
+            return -1;
+        }
     }
 
-    private void invokeInstanceMethod(String method,
-                                      Map<String, ? extends Object> constructorParameters,
-                                      Map<String, ? extends Object> parameters,
-                                      AsyncCompletionHandler<Response> httpHandler) {
-        if (contract == null) {
-            throw new IllegalStateException("Invalid contract");
+    class AsyncCompletionHandlerWithStatusCorrection extends AsyncCompletionHandlerBase
+            implements AsyncHandlerExtensions {
+
+        private long connectStartNanos;
+        private volatile boolean leased;
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            if (status.getStatusCode() == 500) {
+                return STATE.ABORT;
+            } else {
+                return super.onStatusReceived(status);
+            }
         }
 
-        Map<String, Object> combinedParameters = new HashMap<String, Object>();
-        if (constructorParameters != null) {
-            combinedParameters.putAll(constructorParameters);
+        @Override
+        public Response onCompleted(Response response) throws Exception {
+            releaseConnection();
+            return super.onCompleted(response);
         }
-        if (parameters != null) {
-            combinedParameters.putAll(parameters);
+
+        @Override
+        public void onThrowable(Throwable t) {
+            releaseConnection();
+            super.onThrowable(t);
         }
 
-        String verb = contract.getVerbForMethod(method);
-        String path = contract.getUrlForMethod(method, combinedParameters);
-        ParameterEncoding parameterEncoding = contract.getParameterEncodingForMethod(method);
+        @Override
+        public void onOpenConnection() {
+            connectStartNanos = System.nanoTime();
+        }
 
-        request(path, verb, combinedParameters, parameterEncoding, httpHandler);
-    }
+        @Override
+        public void onConnectionOpen() {
+            ConnectionPoolStatistics statistics = getPoolStatistics();
+            if (statistics != null && !leased) {
+                leased = true;
+                statistics.connectionOpened(System.nanoTime() - connectStartNanos);
+            }
+        }
 
-    private void request(String path,
-                         String verb,
-                         Map<String, ? extends Object> parameters,
-                         ParameterEncoding parameterEncoding,
-                         AsyncCompletionHandler<Response> responseHandler) {
+        @Override
+        public void onPoolConnection() {
+        }
 
-        if (!isConnected()) {
-            throw new IllegalStateException("Adapter not connected");
+        @Override
+        public void onConnectionPooled() {
+            ConnectionPoolStatistics statistics = getPoolStatistics();
+            if (statistics != null && !leased) {
+                leased = true;
+                statistics.connectionReused();
+            }
         }
 
-        client.request(verb, path, parameters, parameterEncoding, responseHandler);
-    }
+        @Override
+        public void onSendRequest(Object request) {
+        }
 
-    class AsyncCompletionHandlerWithStatusCorrection extends AsyncCompletionHandlerBase {
+        @Override
+        public void onRetry() {
+            releaseConnection();
+        }
 
         @Override
-        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
-            if (status.getStatusCode() == 500) {
-                return STATE.ABORT;
-            } else {
-                return super.onStatusReceived(status);
+        public void onDnsResolved() {
+        }
+
+        @Override
+        public void onSslHandshakeCompleted() {
+        }
+
+        private void releaseConnection() {
+            ConnectionPoolStatistics statistics = getPoolStatistics();
+            if (statistics != null && leased) {
+                leased = false;
+                statistics.connectionReleased();
             }
         }
     }
 
     class CallbackHandler extends AsyncCompletionHandlerWithStatusCorrection {
         private final Callback callback;
+        private String cacheKey;
+        private ResponseCache.Entry cacheEntry;
+        private boolean storable;
+        private volatile InFlightRequest inFlightRequest;
 
         public CallbackHandler(Callback callback) {
             this.callback = callback;
         }
 
+        /**
+         * Makes this handler store the response in the response cache, and
+         * serve <code>entry</code> when the server answers
+         * <code>304 Not Modified</code>.
+         */
+        void setCacheEntry(String key, ResponseCache.Entry entry) {
+            this.cacheKey = key;
+            this.cacheEntry = entry;
+        }
+
+        @Override
+        public STATE onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            if (cacheKey != null) {
+                // Only a response that will be stored is read into a string.
+                FluentCaseInsensitiveStringsMap map = headers.getHeaders();
+                storable = ResponseCache.isStorable(
+                        map.getFirstValue("Cache-Control"),
+                        map.getFirstValue("ETag"),
+                        map.getFirstValue("Last-Modified"));
+            }
+            return super.onHeadersReceived(headers);
+        }
+
+        void onCachedResponse(String body) {
+            try {
+                if (callback instanceof StreamCallback) {
+                    ((StreamCallback) callback).onSuccess(new StringReader(body));
+                } else {
+                    callback.onSuccess(body);
+                }
+            } catch (Throwable t) {
+                callback.onError(t);
+            }
+        }
+
         @Override
         public Response onCompleted(Response response) throws Exception {
+            List<CallbackHandler> followers = completeInFlightRequest();
             try {
-                String responseBody = response.getResponseBody();
-                Log.getLogger().info("Success (string): " + response);
-                callback.onSuccess(responseBody);
+                if (response == null) {
+                    // The request was aborted when a 500 status was received.
+                    throw new HttpResponseException(500, "Internal Server Error");
+                }
+                int statusCode = response.getStatusCode();
+                if (cacheKey != null && statusCode == 304 && cacheEntry != null) {
+                    Log.getLogger().info("Success (not modified): " + response);
+                    deliver(responseCache.revalidated(
+                            cacheKey, cacheEntry, response).getBody(), followers);
+                } else if (cacheKey != null && statusCode == 200 && storable) {
+                    String responseBody = response.getResponseBody(
+                            getCharset(response).name());
+                    Log.getLogger().info("Success (cacheable): " + response);
+                    responseCache.store(cacheKey, response, responseBody);
+                    deliver(responseBody, followers);
+                } else {
+                    if (cacheKey != null && statusCode == 200) {
+                        responseCache.notStored(cacheKey);
+                    }
+                    if (callback instanceof StreamCallback && followers.isEmpty()) {
+                        Log.getLogger().info("Success (stream): " + response);
+                        ((StreamCallback) callback).onSuccess(new InputStreamReader(
+                                response.getResponseBodyAsStream(),
+                                getCharset(response)));
+                    } else {
+                        String responseBody = response.getResponseBody();
+                        Log.getLogger().info("Success (string): " + response);
+                        deliver(responseBody, followers);
+                    }
+                }
             } catch (Throwable t) {
                 callback.onError(t);
+                for (CallbackHandler follower : followers) {
+                    follower.callback.onError(t);
+                }
             }
 
             return super.onCompleted(response);
@@ -229,6 +1378,161 @@ public class RestAdapter extends Adapter {
         public void onThrowable(Throwable t) {
             Log.getLogger().severe("HTTP request (string) failed: " + t.getMessage());
             callback.onError(t);
+            for (CallbackHandler follower : completeInFlightRequest()) {
+                follower.callback.onError(t);
+            }
+
+            super.onThrowable(t);
+        }
+
+        /**
+         * Makes this handler send the request shared by the handlers that
+         * join <code>inFlightRequest</code>.
+         */
+        void setInFlightRequest(InFlightRequest inFlightRequest) {
+            this.inFlightRequest = inFlightRequest;
+        }
+
+        private List<CallbackHandler> completeInFlightRequest() {
+            InFlightRequest inFlightRequest = this.inFlightRequest;
+            if (inFlightRequest == null) {
+                return Collections.emptyList();
+            }
+            this.inFlightRequest = null;
+            return inFlightRequest.complete();
+        }
+
+        private void deliver(String body, List<CallbackHandler> followers) {
+            onCachedResponse(body);
+            for (CallbackHandler follower : followers) {
+                follower.onCachedResponse(body);
+            }
+        }
+    }
+
+    /**
+     * A GET request shared by all the identical requests made while it is
+     * in flight.
+     */
+    class InFlightRequest {
+        private final String key;
+        private final List<CallbackHandler> followers = new ArrayList<CallbackHandler>();
+        private boolean completed;
+
+        InFlightRequest(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return <code>false</code> if the request completed already.
+         */
+        synchronized boolean join(CallbackHandler follower) {
+            if (completed) {
+                return false;
+            }
+            followers.add(follower);
+            return true;
+        }
+
+        List<CallbackHandler> complete() {
+            inFlightRequests.remove(key, this);
+            synchronized (this) {
+                completed = true;
+                return followers;
+            }
+        }
+    }
+
+    private static Charset getCharset(Response response) {
+        String contentType = response.getContentType();
+        if (contentType != null) {
+            for (String part : contentType.split(";")) {
+                part = part.trim();
+                if (part.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(part.substring(8).replace("\"", ""));
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private AsyncCompletionHandler<Response> createBinaryHandler(BinaryCallback callback) {
+        if (callback instanceof BinaryStreamCallback) {
+            return new BinaryStreamHandler((BinaryStreamCallback) callback);
+        }
+        return new BinaryHandler(callback);
+    }
+
+    class BinaryStreamHandler extends AsyncCompletionHandlerWithStatusCorrection {
+        private final BinaryStreamCallback callback;
+        private int statusCode;
+
+        public BinaryStreamHandler(BinaryStreamCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            statusCode = status.getStatusCode();
+            return super.onStatusReceived(status);
+        }
+
+        @Override
+        public STATE onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            if (statusCode < 400) {
+                Map<String, String> map =
+                        new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+                for (Map.Entry<String, List<String>> header : headers.getHeaders()) {
+                    if (!header.getValue().isEmpty()) {
+                        map.put(header.getKey(), header.getValue().get(0));
+                    }
+                }
+                callback.onStart(statusCode, map);
+            }
+            return super.onHeadersReceived(headers);
+        }
+
+        @Override
+        public STATE onBodyPartReceived(HttpResponseBodyPart content) throws Exception {
+            if (statusCode >= 400) {
+                return super.onBodyPartReceived(content);
+            }
+            callback.onBodyPart(content.getBodyByteBuffer());
+            return STATE.CONTINUE;
+        }
+
+        @Override
+        public Response onCompleted(Response response) throws Exception {
+            if (statusCode == 500) {
+                // The request was aborted when the status was received.
+                Log.getLogger().severe("HTTP request (binary stream) failed: " + statusCode);
+                callback.onError(new HttpResponseException(statusCode,
+                        "Internal Server Error"));
+            } else if (statusCode >= 400) {
+                // Error responses are buffered, not streamed, so that their
+                // body can be included in the error message.
+                Log.getLogger().severe("HTTP request (binary stream) failed: " + statusCode);
+                callback.onError(new HttpResponseException(statusCode,
+                        response.getStatusText() + ": " + response.getResponseBody()));
+            } else {
+                Log.getLogger().info("Success (binary stream): " + response);
+                try {
+                    callback.onComplete();
+                } catch (Throwable t) {
+                    callback.onError(t);
+                }
+            }
+            return super.onCompleted(response);
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            Log.getLogger().severe("HTTP request (binary stream) failed: " + t.getMessage());
+            callback.onError(t);
 
             super.onThrowable(t);
         }
@@ -281,12 +1585,17 @@ public class RestAdapter extends Adapter {
     enum ParameterEncoding {
         FORM_URL,
         JSON,
-        FORM_MULTIPART
+        FORM_MULTIPART,
+        JSON_BODY
     }
 
     public static class HttpClient extends AsyncHttpClient {
 
         private Map<String, String> headers = new HashMap<>();
+        private final ConnectionPoolStatistics poolStatistics;
+        private final CompressionStatistics compressionStatistics;
+        private final int requestCompressionThreshold;
+        private final Timer timer;
 
         private static String getVersionName() {
             String appVersion = null;
@@ -297,6 +1606,30 @@ public class RestAdapter extends Adapter {
         private String baseUrl;
 
         public HttpClient(String baseUrl) {
+            this(baseUrl, new RestAdapterConfig());
+        }
+
+        public HttpClient(String baseUrl, RestAdapterConfig config) {
+            // A fine tick, so that retries and rate-limited requests are
+            // sent close to when they are due.
+            this(baseUrl, config, new ConnectionPoolStatistics(),
+                    new CompressionStatistics(),
+                    new HashedWheelTimer(10, TimeUnit.MILLISECONDS));
+        }
+
+        private HttpClient(String baseUrl,
+                           RestAdapterConfig config,
+                           ConnectionPoolStatistics poolStatistics,
+                           CompressionStatistics compressionStatistics,
+                           Timer timer) {
+            super(createClientConfig(config, poolStatistics,
+                    compressionStatistics, timer));
+            this.poolStatistics = poolStatistics;
+            this.compressionStatistics = compressionStatistics;
+            this.requestCompressionThreshold =
+                    config.getRequestCompressionThreshold();
+            this.timer = timer;
+
             if (baseUrl == null) {
                 throw new IllegalArgumentException(
                         "The baseUrl cannot be null");
@@ -318,6 +1651,67 @@ public class RestAdapter extends Adapter {
             addHeader("Accept", "application/json");
         }
 
+        private static AsyncHttpClientConfig createClientConfig(
+                RestAdapterConfig config,
+                ConnectionPoolStatistics poolStatistics,
+                final CompressionStatistics compressionStatistics,
+                Timer timer) {
+            NettyAsyncHttpProviderConfig providerConfig =
+                    new NettyAsyncHttpProviderConfig();
+            providerConfig.setNettyTimer(timer);
+
+            // Count body bytes on both sides of the content decompressor.
+            AdditionalPipelineInitializer counters = new AdditionalPipelineInitializer() {
+                @Override
+                public void initPipeline(ChannelPipeline pipeline) {
+                    pipeline.addAfter("httpHandler", "compressedContentCounter",
+                            new ContentCountingHandler(compressionStatistics, true));
+                    pipeline.addAfter("inflater", "contentCounter",
+                            new ContentCountingHandler(compressionStatistics, false));
+                }
+            };
+            providerConfig.setHttpAdditionalPipelineInitializer(counters);
+            providerConfig.setHttpsAdditionalPipelineInitializer(counters);
+
+            AsyncHttpClientConfig clientConfig = config
+                    .createClientConfigBuilder()
+                    .setAsyncHttpClientProviderConfig(providerConfig)
+                    .build();
+
+            // Wrap the default pool so that idle connections can be counted.
+            if (clientConfig.isAllowPoolingConnections()) {
+                providerConfig.setChannelPool(new StatisticsChannelPool(
+                        new DefaultChannelPool(clientConfig, timer),
+                        poolStatistics));
+            }
+            return clientConfig;
+        }
+
+        /**
+         * Gets the statistics of this client's connection pool.
+         *
+         * @return the statistics.
+         */
+        public ConnectionPoolStatistics getPoolStatistics() {
+            return poolStatistics;
+        }
+
+        /**
+         * Gets the compression statistics of this client.
+         *
+         * @return the statistics.
+         */
+        public CompressionStatistics getCompressionStatistics() {
+            return compressionStatistics;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            // The timer is owned by this client, not by the HTTP provider.
+            timer.stop();
+        }
+
         private void setUserAgent(String userAgent) {
             addHeader("User-Agent", userAgent);
         }
@@ -326,7 +1720,24 @@ public class RestAdapter extends Adapter {
                             String path,
                             Map<String, ? extends Object> parameters,
                             ParameterEncoding parameterEncoding,
-                            final AsyncCompletionHandler<Response> httpCallback) {
+                            final AsyncHandler<Response> httpCallback) {
+            request(method, path, parameters, parameterEncoding, null, httpCallback);
+        }
+
+        public void request(String method,
+                            String path,
+                            Map<String, ? extends Object> parameters,
+                            ParameterEncoding parameterEncoding,
+                            RequestOptions options,
+                            final AsyncHandler<Response> httpCallback) {
+
+            ListenableFuture<?> cancellation = options != null
+                    ? options.getCancellation() : null;
+            if (cancellation != null && cancellation.isCancelled()) {
+                // Queued or waiting for a retry when it was cancelled.
+                httpCallback.onThrowable(new CancellationException("Request cancelled"));
+                return;
+            }
 
             //TODO: Test extensively to make sure this URI works in tandem with the Android one
             if (path != null) {
@@ -365,39 +1776,65 @@ public class RestAdapter extends Adapter {
                                 "RestAdapter does not support multipart PUT requests");
                     }
 
-                    for (Map.Entry<String, ? extends Object> entry : parameters.entrySet()) {
-                        Object value = entry.getValue();
-                        if (value != null) {
+                    if (!containsStream(parameters)) {
+                        for (Map.Entry<String, ? extends Object> entry : parameters.entrySet()) {
+                            Object value = entry.getValue();
                             if (value instanceof java.io.File) {
                                 request.addBodyPart(new FilePart(entry.getKey(), (File) value));
-                            } else if (value instanceof StreamParam) {
-                                try {
-                                    ((StreamParam) value).putTo(request, entry.getKey());
-                                } catch (IOException e) {
-                                    // TODO: Handle this in a better way. Should not continue.
-                                    e.printStackTrace();
-                                }
                             } else if (value instanceof String) {
                                 request.addFormParam(entry.getKey(), (String) entry.getValue());
-                            } else {
+                            } else if (value != null) {
+                                throw new IllegalArgumentException(
+                                        "Unknown param type for RequestParams: "
+                                                + value.getClass().getName());
+                            }
+                        }
+                    } else {
+                        // Streams are sent as they are read, never buffered.
+                        StreamingMultipart multipart = new StreamingMultipart();
+                        for (Map.Entry<String, ? extends Object> entry : parameters.entrySet()) {
+                            Object value = entry.getValue();
+                            if (value instanceof java.io.File) {
+                                multipart.addFile(entry.getKey(), (File) value);
+                            } else if (value instanceof StreamParam) {
+                                multipart.addStream(entry.getKey(), (StreamParam) value);
+                            } else if (value instanceof String) {
+                                multipart.addField(entry.getKey(), (String) value);
+                            } else if (value != null) {
                                 throw new IllegalArgumentException(
                                         "Unknown param type for RequestParams: "
                                                 + value.getClass().getName());
                             }
                         }
+                        try {
+                            request.setBody(new InputStreamBodyGenerator(multipart.openStream()));
+                        } catch (IOException e) {
+                            httpCallback.onThrowable(e);
+                            return;
+                        }
+                        contentType = multipart.getContentType();
                     }
-                } else if (parameterEncoding == ParameterEncoding.JSON) {
+                } else if (parameterEncoding == ParameterEncoding.JSON
+                        || parameterEncoding == ParameterEncoding.JSON_BODY) {
                     contentType = "application/json; charset=" + charset;
+                    Object json = parameterEncoding == ParameterEncoding.JSON_BODY
+                            ? parameters.get("data") : parameters;
                     String s = "";
                     try {
-                        s = String.valueOf(JsonUtil.toJson(parameters));
+                        s = String.valueOf(JsonUtil.toJson(json));
                     } catch (JSONException e) {
                         Log.getLogger().severe("Couldn't convert parameters to JSON: " + e.getMessage());
                     }
 
-                    // TODO: Make sure that encoding works
-                    request.setBody(s);
-                    //body = new StringEntity(s, charset);
+                    byte[] body = s.getBytes(StandardCharsets.UTF_8);
+                    byte[] compressed = body;
+                    if (requestCompressionThreshold >= 0
+                            && body.length >= requestCompressionThreshold) {
+                        compressed = gzip(body);
+                        request.addHeader("Content-Encoding", "gzip");
+                    }
+                    compressionStatistics.requestBodySent(body.length, compressed.length);
+                    request.setBody(compressed);
                 }
             }
 
@@ -406,24 +1843,157 @@ public class RestAdapter extends Adapter {
 
             // Set the headers
             for (String header : headers.keySet()) {
-                request.addHeader(header, getHeader(header));
+                if (options == null || !options.getHeaders().containsKey(header)) {
+                    request.addHeader(header, getHeader(header));
+                }
+            }
+            if (options != null) {
+                for (Map.Entry<String, String> header : options.getHeaders().entrySet()) {
+                    request.addHeader(header.getKey(), header.getValue());
+                }
+                if (options.getTimeout() > 0) {
+                    // A deadline shortens the configured timeout, it never
+                    // extends it.
+                    long timeout = options.getTimeout();
+                    int configured = getConfig().getRequestTimeout();
+                    if (configured > 0) {
+                        timeout = Math.min(timeout, configured);
+                    }
+                    request.setRequestTimeout((int) Math.min(timeout, Integer.MAX_VALUE));
+                }
             }
 
+            Future<Response> execution;
             if ("GET".equalsIgnoreCase(method)) {
-                request.execute(httpCallback);
+                execution = request.execute(httpCallback);
                 //get(context, url, headers, null, httpCallback);
             } else if ("DELETE".equalsIgnoreCase(method)) {
-                request.execute(httpCallback);
+                execution = request.execute(httpCallback);
                 //delete(context, url, headers, httpCallback);
             } else if ("POST".equalsIgnoreCase(method)) {
                 request.addHeader("Content-Type", contentType);
-                request.execute(httpCallback);
+                execution = request.execute(httpCallback);
             } else if ("PUT".equalsIgnoreCase(method)) {
                 request.addHeader("Content-Type", contentType);
-                request.execute(httpCallback);
+                execution = request.execute(httpCallback);
             } else {
                 throw new IllegalArgumentException("Illegal method: " + method + ". Only GET, POST, PUT, DELETE supported.");
             }
+            if (cancellation != null) {
+                abortOnCancel(cancellation, execution);
+            }
+        }
+
+        /**
+         * Aborts <code>execution</code> once <code>cancellation</code> is
+         * cancelled. Its connection is closed rather than returned to the
+         * pool with a response half-read.
+         */
+        private static void abortOnCancel(final ListenableFuture<?> cancellation,
+                                          final Future<Response> execution) {
+            cancellation.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (cancellation.isCancelled()) {
+                        execution.cancel(true);
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        String getBaseUrl() {
+            return baseUrl;
+        }
+
+        /**
+         * Runs <code>task</code> on this client's timer thread, after
+         * <code>delay</code> milliseconds.
+         */
+        void schedule(final Runnable task, long delay) {
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) {
+                    task.run();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Runs <code>task</code> on the executor this client calls back
+         * on.
+         */
+        void execute(Runnable task) {
+            getConfig().executorService().execute(task);
+        }
+
+        /**
+         * Builds the key of the response cache entry of a GET request. The
+         * key covers the URL and the credentials the request is sent with.
+         */
+        String getCacheKey(String path,
+                           Map<String, ? extends Object> parameters,
+                           RequestOptions options) {
+            StringBuilder key = new StringBuilder(baseUrl);
+            key.append(path != null && path.startsWith("/") ? path.substring(1) : path);
+            if (parameters != null) {
+                char separator = '?';
+                for (Map.Entry<String, Object> entry
+                        : new TreeMap<String, Object>(flattenParameters(parameters)).entrySet()) {
+                    key.append(separator).append(entry.getKey())
+                            .append('=').append(entry.getValue());
+                    separator = '&';
+                }
+            }
+            String authorization = options != null
+                    ? options.getHeaders().get("Authorization") : null;
+            if (authorization == null) {
+                authorization = getHeader("Authorization");
+            }
+            if (authorization != null) {
+                key.append(' ').append(authorization);
+            }
+            return key.toString();
+        }
+
+        /**
+         * Builds the prefix of the response cache keys of the model
+         * <code>path</code> belongs to, i.e. its first segment.
+         */
+        String getCachePrefix(String path) {
+            if (path == null) {
+                return baseUrl;
+            }
+            String relative = path.startsWith("/") ? path.substring(1) : path;
+            int end = relative.length();
+            for (char separator : new char[] { '/', '?' }) {
+                int index = relative.indexOf(separator);
+                if (index >= 0 && index < end) {
+                    end = index;
+                }
+            }
+            return baseUrl + relative.substring(0, end);
+        }
+
+        private static boolean containsStream(Map<String, ? extends Object> parameters) {
+            for (Object value : parameters.values()) {
+                if (value instanceof StreamParam) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+            try {
+                GZIPOutputStream gzip = new GZIPOutputStream(out);
+                gzip.write(data);
+                gzip.close();
+            } catch (IOException e) {
+                // Cannot happen, the data is written to memory.
+                throw new IllegalStateException(e);
+            }
+            return out.toByteArray();
         }
 
         private BoundRequestBuilder prepareRequest(String method, String url) {
@@ -467,14 +2037,14 @@ public class RestAdapter extends Adapter {
             return flattenParameters(null, parameters);
         }
 
-        @SuppressWarnings("unchecked")
         private Map<String, Object> flattenParameters(
                 final String keyPrefix,
                 final Map<String, ? extends Object> parameters) {
 
-            // This method converts nested maps into a flat list
-            //   Input:  { "here": { "lat": 10, "lng": 20 }
-            //   Output: { "here[lat]": 10, "here[lng]": 20 }
+            // This method converts nested maps and lists into a flat list
+            //   Input:  { "here": { "lat": 10, "lng": 20 }, "ids": [1, 2] }
+            //   Output: { "here[lat]": 10, "here[lng]": 20,
+            //             "ids[0]": 1, "ids[1]": 2 }
 
             Map<String, Object> result = new HashMap<String, Object>();
 
@@ -485,18 +2055,27 @@ public class RestAdapter extends Adapter {
                         ? keyPrefix + "[" + entry.getKey() + "]"
                         : entry.getKey();
 
-                Object value = entry.getValue();
-
-                if (value instanceof Map) {
-                    result.putAll(flattenParameters(key, (Map) value));
-                } else {
-                    result.put(key, value);
-                }
+                flattenValue(key, entry.getValue(), result);
             }
 
             return result;
         }
 
+        @SuppressWarnings("unchecked")
+        private void flattenValue(String key, Object value,
+                                  Map<String, Object> result) {
+            if (value instanceof Map) {
+                result.putAll(flattenParameters(key, (Map) value));
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    flattenValue(key + "[" + i + "]", list.get(i), result);
+                }
+            } else {
+                result.put(key, value);
+            }
+        }
+
         public void addHeader(String key, String value) {
             headers.put(key, value);
         }
@@ -0,0 +1,422 @@
+package com.strongloop.android.remoting.adapters;
+
+import com.ning.http.client.AsyncHttpClientConfig;
+import com.ning.http.client.AsyncHttpClientConfigDefaults;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tunable settings of the HTTP client used by a {@link RestAdapter}.
+ * <p>
+ * All values default to the defaults of the underlying
+ * {@link com.ning.http.client.AsyncHttpClient}, so an unmodified config
+ * behaves exactly like the no-argument <code>RestAdapter</code> constructor.
+ * <pre>
+ * {@code
+ * RestAdapterConfig config = new RestAdapterConfig();
+ * config.setMaxConnectionsPerHost(200);
+ * config.setPooledConnectionIdleTimeout(30000);
+ * RestAdapter adapter = new RestAdapter("http://localhost:3000", config);
+ * }
+ * </pre>
+ */
+public class RestAdapterConfig {
+
+    private int maxConnections =
+            AsyncHttpClientConfigDefaults.defaultMaxConnections();
+    private int maxConnectionsPerHost =
+            AsyncHttpClientConfigDefaults.defaultMaxConnectionsPerHost();
+    private int pooledConnectionIdleTimeout =
+            AsyncHttpClientConfigDefaults.defaultPooledConnectionIdleTimeout();
+    private int connectionTTL =
+            AsyncHttpClientConfigDefaults.defaultConnectionTTL();
+    private int ioThreadMultiplier =
+            AsyncHttpClientConfigDefaults.defaultIoThreadMultiplier();
+    private boolean keepAlive =
+            AsyncHttpClientConfigDefaults.defaultAllowPoolingConnections();
+    private int connectTimeout =
+            AsyncHttpClientConfigDefaults.defaultConnectTimeout();
+    private int readTimeout =
+            AsyncHttpClientConfigDefaults.defaultReadTimeout();
+    private int requestTimeout =
+            AsyncHttpClientConfigDefaults.defaultRequestTimeout();
+    private boolean compressionEnabled;
+    private int requestCompressionThreshold = -1;
+    private long responseCacheSize = -1;
+    private File responseCacheDirectory;
+    private long responseCacheDiskSize;
+    private boolean requestCoalescingEnabled;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+    private final Map<String, BulkheadPolicy> bulkheadPolicies =
+            new LinkedHashMap<String, BulkheadPolicy>();
+    private final Map<String, String> bulkheadMethods =
+            new LinkedHashMap<String, String>();
+
+    /**
+     * Gets the maximum number of connections open to all hosts.
+     * @return the limit, or <code>-1</code> when unlimited.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets the maximum number of connections open to all hosts.
+     * @param maxConnections The limit, or <code>-1</code> for unlimited.
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Gets the maximum number of connections open to a single host.
+     * @return the limit, or <code>-1</code> when unlimited.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the maximum number of connections open to a single host.
+     * @param maxConnectionsPerHost The limit, or <code>-1</code> for unlimited.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Gets how long an idle connection may stay in the pool.
+     * @return the timeout in milliseconds.
+     */
+    public int getPooledConnectionIdleTimeout() {
+        return pooledConnectionIdleTimeout;
+    }
+
+    /**
+     * Sets how long an idle connection may stay in the pool before it is
+     * closed.
+     * @param pooledConnectionIdleTimeout The timeout in milliseconds.
+     */
+    public void setPooledConnectionIdleTimeout(int pooledConnectionIdleTimeout) {
+        this.pooledConnectionIdleTimeout = pooledConnectionIdleTimeout;
+    }
+
+    /**
+     * Gets the maximum lifetime of a keep-alive connection.
+     * @return the TTL in milliseconds, or <code>-1</code> when unlimited.
+     */
+    public int getConnectionTTL() {
+        return connectionTTL;
+    }
+
+    /**
+     * Sets the maximum lifetime of a keep-alive connection. Connections older
+     * than this are not returned to the pool.
+     * @param connectionTTL The TTL in milliseconds, or <code>-1</code> for
+     * unlimited.
+     */
+    public void setConnectionTTL(int connectionTTL) {
+        this.connectionTTL = connectionTTL;
+    }
+
+    /**
+     * Gets the number of I/O threads per available processor.
+     * @return the multiplier.
+     */
+    public int getIoThreadMultiplier() {
+        return ioThreadMultiplier;
+    }
+
+    /**
+     * Sets the number of I/O threads per available processor.
+     * @param ioThreadMultiplier The multiplier.
+     */
+    public void setIoThreadMultiplier(int ioThreadMultiplier) {
+        this.ioThreadMultiplier = ioThreadMultiplier;
+    }
+
+    /**
+     * Gets whether connections are kept alive and pooled between requests.
+     * @return <code>true</code> if connections are pooled.
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sets whether connections are kept alive and pooled between requests.
+     * @param keepAlive <code>true</code> to pool connections.
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Gets how long opening a connection may take.
+     * @return the timeout in milliseconds.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets how long opening a connection may take.
+     * @param connectTimeout The timeout in milliseconds.
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Gets how long a connection may stay silent while a response is
+     * expected.
+     * @return the timeout in milliseconds, or <code>-1</code> when
+     * unlimited.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets how long a connection may stay silent while a response is
+     * expected.
+     * @param readTimeout The timeout in milliseconds, or <code>-1</code> for
+     * unlimited.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Gets how long a single HTTP request may take, from sending it to
+     * receiving the whole response.
+     * @return the timeout in milliseconds, or <code>-1</code> when
+     * unlimited.
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Sets how long a single HTTP request may take, from sending it to
+     * receiving the whole response. Each retry gets the full timeout; use
+     * {@link RequestOptions#setTimeout(long)} to bound a call and its
+     * retries.
+     * @param requestTimeout The timeout in milliseconds, or <code>-1</code>
+     * for unlimited.
+     */
+    public void setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Gets whether the client asks the server for compressed responses.
+     * @return <code>true</code> if compression is enabled.
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets whether the client sends <code>Accept-Encoding: gzip,deflate</code>.
+     * Compressed responses are always decompressed as they arrive, whether
+     * or not this option is set.
+     * @param compressionEnabled <code>true</code> to ask for compressed
+     * responses.
+     */
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * Gets the size from which JSON request bodies are gzipped.
+     * @return the threshold in bytes, or <code>-1</code> when request bodies
+     * are never compressed.
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the size from which JSON request bodies are sent gzipped, with
+     * <code>Content-Encoding: gzip</code>. The server must be able to
+     * inflate request bodies.
+     * @param requestCompressionThreshold The threshold in bytes, or
+     * <code>-1</code> to never compress request bodies.
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Gets the maximum size of the responses cached in memory.
+     * @return the size in bytes, or <code>-1</code> when responses are not
+     * cached.
+     */
+    public long getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * Sets the maximum size of the responses to GET requests cached in
+     * memory. See {@link ResponseCache} for the caching rules.
+     * @param responseCacheSize The size in bytes, or <code>-1</code> to not
+     * cache responses.
+     */
+    public void setResponseCacheSize(long responseCacheSize) {
+        this.responseCacheSize = responseCacheSize;
+    }
+
+    /**
+     * Gets the directory where cached responses are also kept.
+     * @return the directory, or <code>null</code> when responses are cached
+     * in memory only.
+     */
+    public File getResponseCacheDirectory() {
+        return responseCacheDirectory;
+    }
+
+    /**
+     * Gets the maximum size of the responses cached on disk.
+     * @return the size in bytes.
+     */
+    public long getResponseCacheDiskSize() {
+        return responseCacheDiskSize;
+    }
+
+    /**
+     * Sets a directory where cached responses are also kept, so that they
+     * survive eviction from memory. Only used when the response cache is
+     * enabled with {@link #setResponseCacheSize(long)}.
+     * @param directory The directory, or <code>null</code> to cache in
+     * memory only.
+     * @param diskSize The maximum size of the files in the directory, in
+     * bytes.
+     */
+    public void setResponseCacheDirectory(File directory, long diskSize) {
+        this.responseCacheDirectory = directory;
+        this.responseCacheDiskSize = diskSize;
+    }
+
+    /**
+     * Gets whether identical GET requests in flight at the same time share
+     * a single HTTP request.
+     * @return <code>true</code> if requests are coalesced.
+     */
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    /**
+     * Sets whether identical GET requests in flight at the same time share
+     * a single HTTP request. Requests are identical when they have the same
+     * URL, query parameters and <code>Authorization</code> header. The
+     * response of the shared request is delivered to the callbacks of all
+     * of them. Requests with a timeout or a cancellation of their own, see
+     * {@link RequestOptions}, are never coalesced.
+     * @param requestCoalescingEnabled <code>true</code> to coalesce
+     * requests.
+     */
+    public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+        this.requestCoalescingEnabled = requestCoalescingEnabled;
+    }
+
+    /**
+     * Gets the policy used to retry failed requests.
+     * @return the policy, or <code>null</code> when requests are not retried.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the policy used to retry failed requests. Routes can override it
+     * with {@link RestContractItem#withRetryPolicy(RetryPolicy)}.
+     * @param retryPolicy The policy, or <code>null</code> to only retry the
+     * routes that have their own policy.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Gets the policy of the circuit breakers guarding the backend.
+     * @return the policy, or <code>null</code> when requests are always sent.
+     */
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    /**
+     * Sets the policy of the circuit breakers guarding the backend. Once a
+     * breaker opens, requests fail immediately with a
+     * {@link CircuitOpenException} until the backend recovers.
+     * @param circuitBreakerPolicy The policy, or <code>null</code> to always
+     * send requests.
+     */
+    public void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        this.circuitBreakerPolicy = circuitBreakerPolicy;
+    }
+
+    /**
+     * Limits the requests of a group of contract methods with a bulkhead.
+     * Methods are named as in the contract, e.g.
+     * <code>"widget.findById"</code>, and a <code>*</code> matches any
+     * characters, e.g. <code>"container.*"</code> or
+     * <code>"*.upload"</code>. Requests of methods in no group are not
+     * limited.
+     * @param name The name of the group.
+     * @param policy The limits shared by the requests of the group.
+     * @param methods The methods of the group.
+     */
+    public void addBulkhead(String name, BulkheadPolicy policy, String... methods) {
+        if (name == null || policy == null) {
+            throw new IllegalArgumentException("Name and policy cannot be null");
+        }
+        bulkheadPolicies.put(name, policy);
+        for (String method : methods) {
+            bulkheadMethods.put(method, name);
+        }
+    }
+
+    /**
+     * Gets the bulkhead policies added with
+     * {@link #addBulkhead(String, BulkheadPolicy, String...)}.
+     * @return the policies, by group name.
+     */
+    public Map<String, BulkheadPolicy> getBulkheadPolicies() {
+        return Collections.unmodifiableMap(bulkheadPolicies);
+    }
+
+    /**
+     * Gets the methods limited by a bulkhead.
+     * @return the group names, by method name or pattern.
+     */
+    public Map<String, String> getBulkheadMethods() {
+        return Collections.unmodifiableMap(bulkheadMethods);
+    }
+
+    /**
+     * Creates a builder for the {@link AsyncHttpClientConfig} described by
+     * this object. Subclasses can override this method to set options not
+     * covered by <code>RestAdapterConfig</code>.
+     * @return The builder.
+     */
+    public AsyncHttpClientConfig.Builder createClientConfigBuilder() {
+        return new AsyncHttpClientConfig.Builder()
+                .setMaxConnections(maxConnections)
+                .setMaxConnectionsPerHost(maxConnectionsPerHost)
+                .setPooledConnectionIdleTimeout(pooledConnectionIdleTimeout)
+                .setConnectionTTL(connectionTTL)
+                .setIOThreadMultiplier(ioThreadMultiplier)
+                .setAllowPoolingConnections(keepAlive)
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .setRequestTimeout(requestTimeout)
+                .setCompressionEnforced(compressionEnabled);
+    }
+}
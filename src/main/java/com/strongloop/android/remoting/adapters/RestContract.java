@@ -2,8 +2,11 @@
 
 package com.strongloop.android.remoting.adapters;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A contract specifies how remote method names map to HTTP routes.
@@ -31,11 +34,19 @@ import java.util.Map;
  * contract.addItem(new RestContractItem("/:id", "GET"), "project.getObject");
  *}
  *</pre>
+ *
+ * A contract is safe to use from multiple threads. Its items are kept in an
+ * immutable snapshot that is replaced on every change, so resolving a
+ * route never takes a lock.
  */
 public class RestContract {
 
-    private Map<String, RestContractItem> items =
-    		new HashMap<String, RestContractItem>();
+    private volatile Map<String, RestContractItem> items =
+    		Collections.emptyMap();
+
+    // The compiled fallback items of the methods without a custom item.
+    private final ConcurrentMap<String, RestContractItem> fallbackItems =
+            new ConcurrentHashMap<String, RestContractItem>();
 
     /**
      * Adds a single item to this contract. The item can be shared among
@@ -56,7 +67,12 @@ public class RestContract {
             throw new IllegalArgumentException(
             		"Neither item nor method can be null");
         }
-        items.put(method, item);
+        synchronized (this) {
+            Map<String, RestContractItem> copy =
+                    new HashMap<String, RestContractItem>(items);
+            copy.put(method, item);
+            items = Collections.unmodifiableMap(copy);
+        }
     }
 
     /**
@@ -68,7 +84,42 @@ public class RestContract {
         if (contract == null) {
             throw new IllegalArgumentException("Contract cannot be null");
         }
-        items.putAll(contract.items);
+        Map<String, RestContractItem> added = contract.items;
+        synchronized (this) {
+            Map<String, RestContractItem> copy =
+                    new HashMap<String, RestContractItem>(items);
+            copy.putAll(added);
+            items = Collections.unmodifiableMap(copy);
+        }
+    }
+
+    /**
+     * Returns the item describing the given method string: its verb,
+     * compiled URL pattern and parameter encoding. Methods without a custom
+     * item resolve to <code>POST</code> on the fallback URL, see
+     * {@link #getUrlForMethodWithoutItem(String)}.
+     * @param method The method to resolve.
+     * @return The item, never <code>null</code>.
+     */
+    public RestContractItem getItemForMethod(String method) {
+        if (method == null) {
+            throw new IllegalArgumentException("Method cannot be null");
+        }
+
+        RestContractItem item = items.get(method);
+        if (item != null) {
+            return item;
+        }
+
+        item = fallbackItems.get(method);
+        if (item == null) {
+            item = new RestContractItem(getUrlForMethodWithoutItem(method));
+            RestContractItem previous = fallbackItems.putIfAbsent(method, item);
+            if (previous != null) {
+                item = previous;
+            }
+        }
+        return item;
     }
 
     /**
@@ -133,10 +184,10 @@ public class RestContract {
             throw new IllegalArgumentException("Method cannot be null");
         }
 
-        String pattern = getPatternForMethod(method);
+        RestContractItem item = items.get(method);
 
-        if (pattern != null) {
-            return getUrl(pattern, parameters);
+        if (item != null) {
+            return item.buildUrl(parameters);
         }
         else {
             return getUrlForMethodWithoutItem(method);
@@ -162,6 +213,7 @@ public class RestContract {
      * example, the pattern <code>"/widgets/:id"</code> with the parameters
      * that contain the value <code>"57"</code> for key <code>"id"</code>,
      * begets <code>"/widgets/57"</code>.
+     * @see RestContractItem#buildUrl(Map)
      * @param pattern The pattern to render.
      * @param parameters The values to render with.
      * @return The rendered URL.
@@ -172,18 +224,6 @@ public class RestContract {
             throw new IllegalArgumentException("Pattern cannot be null");
         }
 
-        String url = pattern;
-        if (parameters == null) {
-            return url;
-        }
-
-        for (Map.Entry<String, ? extends Object> entry :
-        	parameters.entrySet()) {
-            String key = ":" + entry.getKey();
-            String value = String.valueOf(entry.getValue());
-            url = url.replace(key, value);
-        }
-
-        return url;
+        return new RestContractItem(pattern).buildUrl(parameters);
     }
 }
@@ -1,14 +1,37 @@
 package com.strongloop.android.remoting.adapters;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * A single item within a larger SLRESTContract, encapsulation a single route's
  * verb and pattern, e.g. GET /widgets/:id.
+ * <p>
+ * The pattern is compiled into literal and placeholder segments when the
+ * item is created, so building a URL is a single pass over the segments.
  */
 public class RestContractItem {
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<StringBuilder> urlBuilder =
+            new ThreadLocal<StringBuilder>() {
+                @Override
+                protected StringBuilder initialValue() {
+                    return new StringBuilder(128);
+                }
+            };
+
     private final String pattern;
     private final String verb;
     private final RestAdapter.ParameterEncoding parameterEncoding;
+    private final RetryPolicy retryPolicy;
+
+    // literals.length == placeholders.length + 1
+    private final String[] literals;
+    private final String[] placeholders;
 
     /**
      * Creates a new item encapsulating the given pattern and the default verb,
@@ -45,12 +68,95 @@ public class RestContractItem {
                 RestAdapter.ParameterEncoding.FORM_MULTIPART);
     }
 
+    /**
+     * Creates a new item encapsulating a route whose JSON request body is
+     * the value of the <code>"data"</code> parameter, instead of an object
+     * holding all parameters. This allows sending a JSON array, e.g. to
+     * create several models at once.
+     * @param pattern The pattern corresponding to this route, e.g.
+     * <code>"/widgets"</code>.
+     * @param verb The verb corresponding to this route, e.g.
+     * <code>"POST"</code>.
+     * @return The RestContractItem created.
+     */
+    public static RestContractItem createJsonBody(String pattern, String verb) {
+        return new RestContractItem(pattern, verb,
+                RestAdapter.ParameterEncoding.JSON_BODY);
+    }
+
     private RestContractItem(String pattern,
                              String verb,
                              RestAdapter.ParameterEncoding parameterEncoding) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("Pattern cannot be null");
+        }
         this.pattern = pattern;
         this.verb = verb;
         this.parameterEncoding = parameterEncoding;
+        this.retryPolicy = null;
+
+        List<String> literals = new ArrayList<String>();
+        List<String> placeholders = new ArrayList<String>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            if (pattern.charAt(i) == ':') {
+                int nameEnd = i + 1;
+                while (nameEnd < pattern.length()
+                        && isPlaceholderChar(pattern.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                if (nameEnd > i + 1) {
+                    literals.add(pattern.substring(literalStart, i));
+                    placeholders.add(pattern.substring(i + 1, nameEnd));
+                    literalStart = nameEnd;
+                }
+                i = nameEnd;
+            } else {
+                i++;
+            }
+        }
+        literals.add(pattern.substring(literalStart));
+
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.placeholders = placeholders.toArray(new String[placeholders.size()]);
+    }
+
+    private RestContractItem(RestContractItem item, RetryPolicy retryPolicy) {
+        this.pattern = item.pattern;
+        this.verb = item.verb;
+        this.parameterEncoding = item.parameterEncoding;
+        this.literals = item.literals;
+        this.placeholders = item.placeholders;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Creates a copy of this item whose requests are retried according to
+     * <code>retryPolicy</code>, instead of the policy of the adapter.
+     * <pre>
+     * {@code
+     * RetryPolicy never = new RetryPolicy();
+     * never.setMaxAttempts(1);
+     * contract.addItem(new RestContractItem("/payments", "PUT")
+     *         .withRetryPolicy(never), "payment.charge");
+     * }
+     * </pre>
+     * @param retryPolicy The policy, or <code>null</code> to use the policy
+     * of the adapter.
+     * @return The RestContractItem created.
+     */
+    public RestContractItem withRetryPolicy(RetryPolicy retryPolicy) {
+        return new RestContractItem(this, retryPolicy);
+    }
+
+    /**
+     * Gets the retry policy overriding the policy of the adapter for this
+     * route.
+     * @return the policy, or <code>null</code> if not overridden.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
     }
 
     /**
@@ -77,4 +183,71 @@ public class RestContractItem {
     public RestAdapter.ParameterEncoding getParameterEncoding() {
         return parameterEncoding;
     }
+
+    /**
+     * Renders the pattern using the parameters provided. For example, the
+     * pattern <code>"/widgets/:id"</code> with the parameters that contain
+     * the value <code>"57"</code> for key <code>"id"</code>, begets
+     * <code>"/widgets/57"</code>. Values are percent-encoded; placeholders
+     * without a value are left as they are.
+     * @param parameters The values to render with. Can be <code>null</code>.
+     * @return The rendered URL.
+     */
+    public String buildUrl(Map<String, ? extends Object> parameters) {
+        if (placeholders.length == 0) {
+            return pattern;
+        }
+
+        StringBuilder url = urlBuilder.get();
+        url.setLength(0);
+        url.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String name = placeholders[i];
+            if (parameters != null && parameters.containsKey(name)) {
+                appendEncoded(url, String.valueOf(parameters.get(name)));
+            } else {
+                url.append(':').append(name);
+            }
+            url.append(literals[i + 1]);
+        }
+        String result = url.toString();
+
+        // Don't let one huge URL pin a huge buffer to the thread.
+        if (url.capacity() > 4096) {
+            urlBuilder.remove();
+        }
+        return result;
+    }
+
+    private static boolean isPlaceholderChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '_' || c == '$';
+    }
+
+    private static boolean isUnreservedPathChar(char c) {
+        // RFC 3986 pchar, minus the characters that need escaping.
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || "-._~!$&'()*+,;=:@".indexOf(c) >= 0;
+    }
+
+    private static void appendEncoded(StringBuilder url, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && isUnreservedPathChar(c)) {
+                url.append(c);
+                continue;
+            }
+
+            int end = i + 1;
+            if (Character.isHighSurrogate(c) && end < value.length()) {
+                end++;
+            }
+            for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                url.append('%')
+                        .append(HEX_DIGITS[(b >> 4) & 0xF])
+                        .append(HEX_DIGITS[b & 0xF]);
+            }
+            i = end - 1;
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The retry budget of a {@link RestAdapter}, along with live statistics of
+ * its retries.
+ * <p>
+ * Every request that may be retried deposits a fraction of a token, and
+ * every retry withdraws a whole one. When the budget is empty, failed
+ * requests are reported to their callback instead of being retried, so a
+ * failing server does not receive more requests than it would without
+ * retries, plus the configured ratio.
+ *
+ * @see RetryPolicy
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double reserve;
+    private double balance;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejectedRetries = new AtomicLong();
+
+    RetryBudget(double ratio, int reserve) {
+        this.ratio = ratio;
+        this.reserve = reserve;
+        this.balance = reserve;
+    }
+
+    /**
+     * Gets the number of retries sent so far.
+     * @return the number of retries.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Gets the number of retries not sent because the budget was empty.
+     * @return the number of rejected retries.
+     */
+    public long getRejectedRetries() {
+        return rejectedRetries.get();
+    }
+
+    /**
+     * Gets the number of retries that can be sent right now.
+     * @return the number of tokens left.
+     */
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{balance=" + getBalance()
+                + ", retries=" + getRetries()
+                + ", rejected=" + getRejectedRetries()
+                + "}";
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(reserve, balance + ratio);
+    }
+
+    /**
+     * @return <code>true</code> if a retry may be sent.
+     */
+    boolean withdraw() {
+        synchronized (this) {
+            if (balance >= 1) {
+                balance -= 1;
+                retries.incrementAndGet();
+                return true;
+            }
+        }
+        rejectedRetries.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.util.Random;
+
+/**
+ * Describes when and how a {@link RestAdapter} retries a failed request.
+ * <p>
+ * A request is retried when the server could not be reached, when it
+ * timed out before a response arrived, or when the server answered
+ * <code>502 Bad Gateway</code>, <code>503 Service Unavailable</code> or
+ * <code>504 Gateway Timeout</code>. By default, only requests with an
+ * idempotent verb (<code>GET</code>, <code>HEAD</code>, <code>PUT</code>
+ * and <code>DELETE</code>) are retried, since sending a <code>POST</code>
+ * twice may create two models.
+ * <p>
+ * Retries are delayed by an exponential backoff with full jitter: the
+ * delay before attempt <code>n + 1</code> is picked at random between zero
+ * and <code>min(maxBackoff, initialBackoff * multiplier^(n - 1))</code>.
+ * A <code>Retry-After</code> header sent by the server replaces the
+ * computed delay; the request is not retried when that header asks to wait
+ * longer than <code>maxBackoff</code>.
+ * <p>
+ * Retries are limited by a budget shared by all requests of an adapter, so
+ * that they cannot multiply the load of a server that is already failing:
+ * each request earns <code>budgetRatio</code> retry tokens, up to
+ * <code>budgetReserve</code> tokens, and each retry spends one.
+ * <pre>
+ * {@code
+ * RetryPolicy policy = new RetryPolicy();
+ * policy.setMaxAttempts(4);
+ * policy.setInitialBackoff(200);
+ * RestAdapterConfig config = new RestAdapterConfig();
+ * config.setRetryPolicy(policy);
+ * }
+ * </pre>
+ *
+ * @see RestAdapterConfig#setRetryPolicy(RetryPolicy)
+ * @see RestContractItem#withRetryPolicy(RetryPolicy)
+ */
+public class RetryPolicy {
+
+    private int maxAttempts = 3;
+    private long initialBackoff = 100;
+    private long maxBackoff = 5000;
+    private double multiplier = 2;
+    private boolean idempotentOnly = true;
+    private double budgetRatio = 0.1;
+    private int budgetReserve = 10;
+
+    /**
+     * Gets the maximum number of times a request is sent, including the
+     * first attempt.
+     * @return the number of attempts.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of times a request is sent, including the
+     * first attempt. Use <code>1</code> to never retry.
+     * @param maxAttempts The number of attempts.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Gets the upper bound of the delay before the first retry.
+     * @return the delay in milliseconds.
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the delay before the first retry.
+     * @param initialBackoff The delay in milliseconds.
+     */
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * Gets the upper bound of the delay before any retry.
+     * @return the delay in milliseconds.
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the delay before any retry. This also caps
+     * the <code>Retry-After</code> delay the client agrees to wait.
+     * @param maxBackoff The delay in milliseconds.
+     */
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Gets the factor applied to the backoff after each attempt.
+     * @return the multiplier.
+     */
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Sets the factor applied to the backoff after each attempt.
+     * @param multiplier The multiplier, at least <code>1</code>.
+     */
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Gets whether only requests with an idempotent verb are retried.
+     * @return <code>true</code> if <code>POST</code> requests are never
+     * retried.
+     */
+    public boolean isIdempotentOnly() {
+        return idempotentOnly;
+    }
+
+    /**
+     * Sets whether only requests with an idempotent verb are retried. Set it
+     * to <code>false</code> on the policy of a route whose
+     * <code>POST</code> is known to be safe to repeat. Multipart uploads
+     * are never retried, since their body cannot be read twice.
+     * @param idempotentOnly <code>false</code> to retry <code>POST</code>
+     * requests too.
+     */
+    public void setIdempotentOnly(boolean idempotentOnly) {
+        this.idempotentOnly = idempotentOnly;
+    }
+
+    /**
+     * Gets the number of retry tokens earned by each request.
+     * @return the ratio.
+     */
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Sets the number of retry tokens earned by each request. With the
+     * default of <code>0.1</code>, retries add at most 10% to the requests
+     * sent, once the reserve is spent.
+     * @param budgetRatio The ratio.
+     */
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * Gets the maximum number of retry tokens saved up.
+     * @return the number of tokens.
+     */
+    public int getBudgetReserve() {
+        return budgetReserve;
+    }
+
+    /**
+     * Sets the maximum number of retry tokens saved up. It is also the
+     * number of tokens the budget starts with, so that a burst of failures
+     * can be retried right after the adapter is created.
+     * @param budgetReserve The number of tokens.
+     */
+    public void setBudgetReserve(int budgetReserve) {
+        this.budgetReserve = budgetReserve;
+    }
+
+    /**
+     * @return <code>true</code> if requests sent with <code>verb</code> and
+     * <code>encoding</code> may be retried under this policy.
+     */
+    boolean appliesTo(String verb, RestAdapter.ParameterEncoding encoding) {
+        if (maxAttempts < 2
+                || encoding == RestAdapter.ParameterEncoding.FORM_MULTIPART) {
+            return false;
+        }
+        return !idempotentOnly
+                || "GET".equalsIgnoreCase(verb)
+                || "HEAD".equalsIgnoreCase(verb)
+                || "PUT".equalsIgnoreCase(verb)
+                || "DELETE".equalsIgnoreCase(verb);
+    }
+
+    /**
+     * @return <code>true</code> if a response with this status is retried.
+     */
+    static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * @return the delay before sending the attempt following
+     * <code>attempt</code>, in milliseconds.
+     */
+    long getBackoff(int attempt, Random random) {
+        double ceiling = initialBackoff * Math.pow(multiplier, attempt - 1);
+        long bound = (long) Math.min(maxBackoff, ceiling);
+        return bound > 0 ? (long) (random.nextDouble() * bound) : 0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.strongloop.android.remoting.adapters;
+
+import com.ning.http.client.providers.netty.channel.pool.ChannelPool;
+import com.ning.http.client.providers.netty.channel.pool.ChannelPoolPartitionSelector;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link ChannelPool} that keeps {@link ConnectionPoolStatistics} up to
+ * date with the number of idle connections of the pool it decorates.
+ */
+class StatisticsChannelPool implements ChannelPool {
+
+    private final ChannelPool delegate;
+    private final ConnectionPoolStatistics statistics;
+    private final Set<Integer> idleChannels =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private final Set<Integer> trackedChannels =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            Integer id = future.getChannel().getId();
+            trackedChannels.remove(id);
+            removeIdle(id);
+        }
+    };
+
+    StatisticsChannelPool(ChannelPool delegate,
+                          ConnectionPoolStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public boolean offer(Channel channel, String partitionKey) {
+        boolean offered = delegate.offer(channel, partitionKey);
+        if (offered) {
+            if (idleChannels.add(channel.getId())) {
+                statistics.idleConnectionAdded();
+            }
+            if (trackedChannels.add(channel.getId())) {
+                channel.getCloseFuture().addListener(closeListener);
+            }
+        }
+        return offered;
+    }
+
+    @Override
+    public Channel poll(String partitionKey) {
+        Channel channel = delegate.poll(partitionKey);
+        if (channel != null) {
+            removeIdle(channel.getId());
+        }
+        return channel;
+    }
+
+    @Override
+    public boolean removeAll(Channel channel) {
+        boolean removed = delegate.removeAll(channel);
+        removeIdle(channel.getId());
+        return removed;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void destroy() {
+        delegate.destroy();
+        for (Integer id : idleChannels) {
+            removeIdle(id);
+        }
+    }
+
+    @Override
+    public void flushPartition(String partitionKey) {
+        delegate.flushPartition(partitionKey);
+    }
+
+    @Override
+    public void flushPartitions(ChannelPoolPartitionSelector selector) {
+        delegate.flushPartitions(selector);
+    }
+
+    private void removeIdle(Integer id) {
+        if (idleChannels.remove(id)) {
+            statistics.idleConnectionRemoved();
+        }
+    }
+}
@@ -4,30 +4,117 @@ import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.multipart.ByteArrayPart;
 import org.apache.commons.io.IOUtils;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
  * A request parameter that is a (binary) stream.
+ * <p>
+ * The stream is read while the request is sent, so uploads of any size
+ * need only a few small buffers.
  */
 public class StreamParam {
     private final InputStream stream;
     private final String fileName;
     private final String contentType;
+    private final long length;
+    private ProgressListener progressListener;
 
     public StreamParam(InputStream stream, String fileName) {
         this(stream, fileName, null);
     }
 
     public StreamParam(InputStream stream, String fileName, String contentType) {
+        this(stream, fileName, contentType, -1);
+    }
+
+    /**
+     * @param stream The content.
+     * @param fileName The file name.
+     * @param contentType The content type (optional).
+     * @param length The length of the content, or <code>-1</code> if
+     *               unknown. Only used to report progress.
+     */
+    public StreamParam(InputStream stream, String fileName, String contentType,
+                       long length) {
         this.stream = stream;
         this.fileName = fileName;
         this.contentType = contentType;
+        this.length = length;
     }
 
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The length of the content, or <code>-1</code> if unknown.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Sets the listener notified as the content is read for sending.
+     * @param progressListener The listener.
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @deprecated Buffers the whole stream in memory. The adapter now
+     * streams <code>StreamParam</code> values itself.
+     */
+    @Deprecated
     public void putTo(AsyncHttpClient.BoundRequestBuilder requestBuilder, String key) throws IOException {
         byte[] bytes = IOUtils.toByteArray(stream);
         ByteArrayPart arrayPart = new ByteArrayPart(key, bytes, contentType, null, fileName);
         requestBuilder.addBodyPart(arrayPart);
     }
+
+    /**
+     * Opens the content for sending, reporting progress to the listener.
+     */
+    InputStream openStream() {
+        final ProgressListener listener = progressListener;
+        if (listener == null) {
+            return stream;
+        }
+        return new FilterInputStream(stream) {
+            private long transferred;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    transferred(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    transferred(n);
+                }
+                return n;
+            }
+
+            private void transferred(int count) {
+                transferred += count;
+                listener.onProgress(transferred, length);
+            }
+        };
+    }
 }
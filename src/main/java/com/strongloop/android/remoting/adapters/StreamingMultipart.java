@@ -0,0 +1,105 @@
+package com.strongloop.android.remoting.adapters;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A <code>multipart/form-data</code> body that is produced while it is
+ * sent. File and stream contents are never buffered in memory, unlike the
+ * parts of {@link com.ning.http.client.multipart.MultipartBody}.
+ */
+class StreamingMultipart {
+
+    private final String boundary =
+            "----StrongLoopFormBoundary" + UUID.randomUUID().toString().replace("-", "");
+    private final List<Object> parts = new ArrayList<Object>();
+    private final List<String> names = new ArrayList<String>();
+
+    String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    void addField(String name, String value) {
+        parts.add(value);
+        names.add(name);
+    }
+
+    void addFile(String name, File file) {
+        parts.add(file);
+        names.add(name);
+    }
+
+    void addStream(String name, StreamParam param) {
+        parts.add(param);
+        names.add(name);
+    }
+
+    /**
+     * Opens the body. Local files are opened right away, so that a missing
+     * file fails the request before anything is sent.
+     */
+    InputStream openStream() throws IOException {
+        List<InputStream> streams = new ArrayList<InputStream>();
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                Object part = parts.get(i);
+                String name = names.get(i);
+                if (part instanceof String) {
+                    streams.add(header(name, null, null));
+                    streams.add(bytes((String) part));
+                } else if (part instanceof File) {
+                    File file = (File) part;
+                    streams.add(header(name, file.getName(), null));
+                    streams.add(new FileInputStream(file));
+                } else {
+                    StreamParam param = (StreamParam) part;
+                    streams.add(header(name, param.getFileName(), param.getContentType()));
+                    streams.add(param.openStream());
+                }
+                streams.add(bytes("\r\n"));
+            }
+        } catch (IOException e) {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+            throw e;
+        }
+        streams.add(bytes("--" + boundary + "--\r\n"));
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    private InputStream header(String name, String fileName, String contentType) {
+        StringBuilder header = new StringBuilder()
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"")
+                .append(quote(name)).append('"');
+        if (fileName != null) {
+            header.append("; filename=\"").append(quote(fileName)).append('"');
+        }
+        header.append("\r\n");
+        if (fileName != null) {
+            header.append("Content-Type: ")
+                    .append(contentType != null ? contentType : "application/octet-stream")
+                    .append("\r\n");
+        }
+        header.append("\r\n");
+        return bytes(header.toString());
+    }
+
+    private static String quote(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static InputStream bytes(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
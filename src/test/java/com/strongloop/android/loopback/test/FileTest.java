@@ -1,24 +1,42 @@
 package com.strongloop.android.loopback.test;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.strongloop.android.loopback.Container;
 import com.strongloop.android.loopback.ContainerRepository;
 import com.strongloop.android.loopback.File;
+import com.strongloop.android.loopback.FileRepository;
 import com.strongloop.android.loopback.RestAdapter;
 import com.strongloop.android.loopback.callbacks.ObjectCallback;
+import com.strongloop.android.loopback.callbacks.ObjectFuture;
+import com.strongloop.android.loopback.callbacks.VoidFuture;
 import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.HttpResponseException;
+import com.strongloop.android.remoting.adapters.ProgressListener;
 import com.strongloop.android.remoting.adapters.RestContractItem;
 import com.strongloop.android.util.Log;
 import junit.framework.AssertionFailedError;
+import org.json.JSONArray;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FileTest extends AsyncTestCase {
     static final private String TAG = "FileTest";
@@ -251,6 +269,89 @@ public class FileTest extends AsyncTestCase {
         assertArrayEquals(binaryData, content);
     }
 
+    @Test
+    public void testFileUploadFromLocalFileInParts() throws Throwable {
+        final Container container = givenContainer(containerRepo);
+        final java.io.File local = givenLocalFile(binaryData);
+
+        doAsyncTest(new AsyncTest() {
+            @Override
+            public void run() {
+                container.getFileRepository().upload(local, 2, 2,
+                        new ObjectTestCallback<File>() {
+                    @Override
+                    public void onSuccess(File file) {
+                        assertEquals(local.getName(), file.getName());
+                        notifyFinished();
+                    }
+                });
+            }
+        });
+
+        byte[] content = download(container, local.getName());
+        assertArrayEquals(binaryData, content);
+    }
+
+    @Test
+    public void testFileUploadInPartsAbandonedWhenComposeFails() throws Throwable {
+        Container container = givenContainer(containerRepo);
+        java.io.File local = givenLocalFile(binaryData);
+        FileRepository fileRepo = container.getFileRepository();
+        // A server without the compose method.
+        adapter.getContract().addItem(new RestContractItem(
+                "/missing/containers/:container/compose", "POST"),
+                "file.compose");
+
+        UploadFuture upload = new UploadFuture();
+        fileRepo.upload(local, 2, 2, upload);
+        try {
+            upload.get(10, TimeUnit.SECONDS);
+            fail("Upload without compose should have failed");
+        } catch (ExecutionException e) {
+            // expected
+        }
+
+        assertFalse("Journal left", new java.io.File(local.getPath() + ".upload").exists());
+        assertEquals("Parts left", Collections.<String>emptyList(),
+                listStoredFiles(container));
+    }
+
+    @Test
+    public void testStreamUploadOfUnknownLength() throws Throwable {
+        final Container container = givenContainer(containerRepo);
+        GeneratedStream content = new GeneratedStream(3 * 1024 * 1024);
+        UploadFuture upload = new UploadFuture();
+
+        container.getFileRepository().upload("a-stream", content, null, upload);
+        // A buffered upload would block on the paused stream.
+        assertTrue("Stream read before sending", content.getPosition() < content.length);
+        content.release();
+
+        File file = upload.get(30, TimeUnit.SECONDS);
+        assertEquals("a-stream", file.getName());
+        assertEquals("Total bytes", -1, upload.totalBytes);
+        assertEquals("Bytes transferred", content.length, upload.bytesTransferred);
+        assertTrue("Progress not reported while sending", upload.updates.get() > 1);
+        assertArrayEquals(GeneratedStream.generate(content.length),
+                download(container, "a-stream"));
+    }
+
+    @Test
+    public void testStreamUploadOfKnownLength() throws Throwable {
+        final Container container = givenContainer(containerRepo);
+        byte[] content = GeneratedStream.generate(1024 * 1024);
+        java.io.File local = givenLocalFile(content);
+        UploadFuture upload = new UploadFuture();
+
+        container.getFileRepository().upload(local, upload);
+
+        File file = upload.get(30, TimeUnit.SECONDS);
+        assertEquals(local.getName(), file.getName());
+        assertEquals("Total bytes", content.length, upload.totalBytes);
+        assertEquals("Bytes transferred", content.length, upload.bytesTransferred);
+        assertArrayEquals(content, download(container, local.getName()));
+    }
+
     @Test
     public void testFileDownloadToLocalFile() throws Throwable {
         final File file = givenFile(containerRepo, binaryData);
@@ -275,6 +376,148 @@ public class FileTest extends AsyncTestCase {
         });
     }
 
+    @Test
+    public void testLargeFileDownloadToLocalFile() throws Throwable {
+        byte[] content = GeneratedStream.generate(2 * 1024 * 1024);
+        File file = givenFile(containerRepo, "a-large-file", content);
+        java.io.File local = new java.io.File(localDir, "outfile");
+
+        VoidFuture download = new VoidFuture();
+        file.download(local, download);
+        download.get(30, TimeUnit.SECONDS);
+
+        assertArrayEquals(content, Files.toByteArray(local));
+    }
+
+    @Test
+    public void testFileDownloadToLocalFileFailure() throws Throwable {
+        Container container = givenContainer(containerRepo);
+        java.io.File local = new java.io.File(localDir, "outfile");
+
+        VoidFuture download = new VoidFuture();
+        container.createFileObject("a-missing-file").download(local, download);
+        try {
+            download.get(30, TimeUnit.SECONDS);
+            fail("Download of a missing file should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(),
+                    e.getCause() instanceof HttpResponseException);
+        }
+        assertFalse("Local file created", local.exists());
+    }
+
+    @Test
+    public void testOpenStream() throws Throwable {
+        byte[] content = GeneratedStream.generate(1024 * 1024);
+        File file = givenFile(containerRepo, "a-large-file", content);
+
+        // The first read waits for the body to arrive.
+        InputStream stream = file.openStream();
+        try {
+            assertArrayEquals(content, ByteStreams.toByteArray(stream));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testOpenStreamClosedPartway() throws Throwable {
+        byte[] content = GeneratedStream.generate(4 * 1024 * 1024);
+        File file = givenFile(containerRepo, "a-large-file", content);
+
+        InputStream stream = file.openStream();
+        byte[] start = new byte[1000];
+        ByteStreams.readFully(stream, start);
+        assertArrayEquals(Arrays.copyOf(content, start.length), start);
+        stream.close();
+        try {
+            stream.read();
+            fail("Read of a closed stream should have failed");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // The download is aborted and its connection released.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (adapter.getPoolStatistics().getLeasedConnections() > 0) {
+            assertTrue("Connection not released",
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertArrayEquals(content, download(file.getContainerRef(), "a-large-file"));
+    }
+
+    @Test
+    public void testOpenStreamFailure() throws Throwable {
+        Container container = givenContainer(containerRepo);
+
+        InputStream stream = container.createFileObject("a-missing-file").openStream();
+        try {
+            stream.read();
+            fail("Read of a missing file should have failed");
+        } catch (HttpResponseException e) {
+            // expected
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testRangedDownload() throws Throwable {
+        byte[] content = GeneratedStream.generate(1024 * 1024 + 123);
+        File file = givenFile(containerRepo, "a-large-file", content);
+        java.io.File local = new java.io.File(localDir, "outfile");
+
+        VoidFuture download = new VoidFuture();
+        file.download(local, 3, 256 * 1024, download);
+        download.get(30, TimeUnit.SECONDS);
+
+        assertArrayEquals(content, Files.toByteArray(local));
+    }
+
+    @Test
+    public void testRangedDownloadWithoutRangeSupport() throws Throwable {
+        byte[] content = GeneratedStream.generate(1024 * 1024 + 123);
+        File file = givenFile(containerRepo, "a-large-file", content);
+        java.io.File local = new java.io.File(localDir, "outfile");
+        givenDownloadRoute("/no-ranges");
+
+        VoidFuture download = new VoidFuture();
+        file.download(local, 3, 256 * 1024, download);
+        download.get(30, TimeUnit.SECONDS);
+
+        assertArrayEquals(content, Files.toByteArray(local));
+    }
+
+    @Test
+    public void testRangedDownloadFailure() throws Throwable {
+        byte[] content = GeneratedStream.generate(1024 * 1024 + 123);
+        File file = givenFile(containerRepo, "a-large-file", content);
+        java.io.File local = new java.io.File(localDir, "outfile");
+        givenDownloadRoute("/failing-ranges");
+
+        VoidFuture download = new VoidFuture();
+        file.download(local, 3, 256 * 1024, download);
+        try {
+            download.get(30, TimeUnit.SECONDS);
+            fail("Download with a failing range should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(),
+                    e.getCause() instanceof HttpResponseException);
+        }
+        assertFalse("Partial local file left", local.exists());
+    }
+
+    /**
+     * Routes the downloads of files to the variant of the download route
+     * of the test server under <code>prefix</code>.
+     */
+    private void givenDownloadRoute(String prefix) {
+        adapter.getContract().addItem(new RestContractItem(
+                prefix + "/containers/:container/download/:name", "GET"),
+                "file.prototype.download");
+    }
+
     private byte[] download(final Container container, final String fileName)
             throws Throwable {
         final List<byte[]> ref = new ArrayList<byte[]>(1);
@@ -302,6 +545,36 @@ public class FileTest extends AsyncTestCase {
         return ref.get(0);
     }
 
+    /**
+     * Lists the names of all files stored in <code>container</code>,
+     * including the parts of uploads.
+     */
+    private List<String> listStoredFiles(final Container container) throws Throwable {
+        final List<String> names = new ArrayList<String>();
+        await(new AsyncTask() {
+            @Override
+            public void run() {
+                adapter.invokeStaticMethod("file.getAll",
+                        Collections.singletonMap("container", container.getName()),
+                        new Adapter.JsonArrayCallback() {
+                            @Override
+                            public void onSuccess(JSONArray response) {
+                                for (int i = 0; i < response.length(); i++) {
+                                    names.add(response.optJSONObject(i).optString("name"));
+                                }
+                                notifyFinished();
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                notifyFailed(t);
+                            }
+                        });
+            }
+        });
+        return names;
+    }
+
     private void destroyAllContainers() throws Throwable {
         adapter.getContract().addItem(
                 new RestContractItem("/containers", "DELETE"),
@@ -350,6 +623,80 @@ public class FileTest extends AsyncTestCase {
         }
     }
 
+    /**
+     * An upload callback recording the progress notifications.
+     */
+    private static class UploadFuture extends ObjectFuture<File>
+            implements ProgressListener {
+        final AtomicInteger updates = new AtomicInteger();
+        volatile long bytesTransferred;
+        volatile long totalBytes;
+
+        @Override
+        public void onProgress(long bytesTransferred, long totalBytes) {
+            updates.incrementAndGet();
+            this.bytesTransferred = bytesTransferred;
+            this.totalBytes = totalBytes;
+        }
+    }
+
+    /**
+     * A stream of generated content, paused halfway until released.
+     */
+    private static class GeneratedStream extends InputStream {
+        final int length;
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile int position;
+
+        GeneratedStream(int length) {
+            this.length = length;
+        }
+
+        static byte[] generate(int length) {
+            byte[] content = new byte[length];
+            for (int i = 0; i < length; i++) {
+                content[i] = (byte) (i % 251);
+            }
+            return content;
+        }
+
+        int getPosition() {
+            return position;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+            if (position >= length / 2) {
+                try {
+                    if (!released.await(10, TimeUnit.SECONDS)) {
+                        throw new IOException("Stream not released");
+                    }
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            int n = Math.min(len, length - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) ((position + i) % 251);
+            }
+            position += n;
+            return n;
+        }
+    }
+
     public java.io.File givenLocalFile(byte[] content) throws IOException {
         if (!localDir.exists()) throw new Error(localDir + " does not exist!");
         java.io.File file = new java.io.File(localDir, "a-file.txt");
@@ -0,0 +1,52 @@
+package com.strongloop.android.loopback.test;
+
+import com.strongloop.android.loopback.LoopbackAuthenticationException;
+import com.strongloop.android.loopback.LoopbackInterface;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoopbackInterfaceTest extends AsyncTestCase {
+
+    // The users are created in test-server/index.js, logging in as the
+    // slow user takes two seconds.
+    static final private String userEmail = "user@example.com";
+    static final private String slowUserEmail = "slow@example.com";
+    static final private String userPassword = "secret";
+
+    private LoopbackInterface loopbackInterface;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        loopbackInterface = LoopbackInterface.getDefault(REST_SERVER_URL);
+    }
+
+    @Test
+    public void testLoginSynchronously() throws Throwable {
+        assertTrue(loopbackInterface.loginSynchronously(userEmail, userPassword));
+        assertNotNull("No current user", loopbackInterface.getCurrentUser());
+        assertEquals(userEmail, loopbackInterface.getCurrentUser().getEmail());
+    }
+
+    @Test
+    public void testLoginSynchronouslyTimesOut() throws Throwable {
+        long started = System.currentTimeMillis();
+        try {
+            loopbackInterface.loginSynchronously(slowUserEmail, userPassword, 300);
+            fail("Login did not time out");
+        } catch (LoopbackAuthenticationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("timed out"));
+        }
+        assertTrue("Timed out too late",
+                System.currentTimeMillis() - started < 2000);
+        assertNull("User logged in", loopbackInterface.getCurrentUser());
+    }
+
+    @Test
+    public void testLoginSynchronouslyWithoutTimeout() throws Throwable {
+        // A timeout of 0 waits for the slow server instead of giving up.
+        assertTrue(loopbackInterface.loginSynchronously(slowUserEmail, userPassword, 0));
+        assertEquals(slowUserEmail, loopbackInterface.getCurrentUser().getEmail());
+    }
+}
@@ -1,5 +1,8 @@
 package com.strongloop.android.loopback.test;
 
+import com.google.common.util.concurrent.Futures;
+import com.strongloop.android.loopback.BatchResult;
+import com.strongloop.android.loopback.Filter;
 import com.strongloop.android.loopback.Model;
 import com.strongloop.android.loopback.ModelRepository;
 import com.strongloop.android.loopback.RestAdapter;
@@ -9,9 +12,13 @@ import com.strongloop.android.util.Log;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import static com.strongloop.android.loopback.test.TestHelpers.assertPropertyNames;
@@ -134,6 +141,249 @@ public class ModelTest extends AsyncTestCase {
         });
     }
 
+    @Test
+    public void testFindAllWithFilter() throws Throwable {
+        Filter filter = new Filter()
+                .where("name", "inq", Arrays.asList("Foo", "Bar"))
+                .fields("id", "name")
+                .orderDescending("name")
+                .limit(1);
+        List<Model> list = repository.findAllAsync(filter).get(10, TimeUnit.SECONDS);
+
+        assertEquals("Invalid # of models returned", 1, list.size());
+        assertNotNull("Missing id", list.get(0).getId());
+        assertEquals("Invalid name", "Foo", list.get(0).get("name"));
+        assertNull("Unexpected bars", list.get(0).get("bars"));
+    }
+
+    @Test
+    public void testIterate() throws Throwable {
+        Filter filter = new Filter()
+                .where("name", "inq", Arrays.asList("Foo", "Bar"))
+                .order("name");
+
+        List<String> names = new ArrayList<String>();
+        for (Model model : repository.iterate(filter, 1)) {
+            names.add((String) model.get("name"));
+        }
+
+        assertEquals(Arrays.asList("Bar", "Foo"), names);
+    }
+
+    @Test
+    public void testCreateAllAndDestroyAll() throws Throwable {
+        List<Model> models = new ArrayList<Model>();
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("name", "Batch " + i);
+            models.add(repository.createObject(params));
+        }
+
+        BatchResult<Model> created = repository.createAllAsync(models, 2, 2)
+                .get(10, TimeUnit.SECONDS);
+        assertTrue("Create failed: " + created.getFailures(), created.isSuccessful());
+        List<Object> ids = new ArrayList<Object>();
+        for (Model model : models) {
+            assertNotNull("Id not assigned", model.getId());
+            ids.add(model.getId());
+        }
+
+        BatchResult<Object> destroyed = repository.destroyAllAsync(ids, 2)
+                .get(10, TimeUnit.SECONDS);
+        assertTrue("Destroy failed: " + destroyed.getFailures(), destroyed.isSuccessful());
+        assertEquals(5, destroyed.getSucceeded().size());
+    }
+
+    @Test
+    public void testDirtyTracking() throws Throwable {
+        Model model = repository.findByIdAsync(2).get(10, TimeUnit.SECONDS);
+        assertFalse("Loaded model is dirty", model.isDirty());
+
+        model.put("name", "Barbaz");
+        assertEquals(1, model.getChanges().size());
+        assertEquals("Barbaz", model.getChanges().get("name"));
+
+        model.saveAsync().get(10, TimeUnit.SECONDS);
+        assertFalse("Saved model is dirty", model.isDirty());
+
+        model.put("name", "Bar");
+        model.saveAsync().get(10, TimeUnit.SECONDS);
+        Model reloaded = repository.findByIdAsync(2).get(10, TimeUnit.SECONDS);
+        assertEquals("Bar", reloaded.get("name"));
+        assertEquals(1, reloaded.get("bars"));
+    }
+
+    @Test
+    public void testCompactStorage() throws Throwable {
+        repository.setCompactStorage(true);
+
+        List<Model> models = Futures.allAsList(
+                repository.findByIdAsync(1),
+                repository.findByIdAsync(2)).get(10, TimeUnit.SECONDS);
+        assertEquals("Invalid name", "Foo", models.get(0).get("name"));
+        assertEquals("Invalid name", "Bar", models.get(1).get("name"));
+        assertEquals("Invalid bars", 1, models.get(1).toMap().get("bars"));
+        assertFalse("Loaded model is dirty", models.get(1).isDirty());
+
+        models.get(1).put("extra", "value");
+        assertEquals("value", models.get(1).get("extra"));
+        assertNull("Property leaked", models.get(0).get("extra"));
+    }
+
+    @Test
+    public void testFindByIdAsync() throws Throwable {
+        List<Model> models = Futures.allAsList(
+                repository.findByIdAsync(1),
+                repository.findByIdAsync(2)).get(10, TimeUnit.SECONDS);
+
+        assertEquals("Invalid # of models returned", 2, models.size());
+        assertEquals("Invalid name", "Foo", models.get(0).get("name"));
+        assertEquals("Invalid name", "Bar", models.get(1).get("name"));
+    }
+
+    @Test
+    public void testBlockingCalls() throws Throwable {
+        Model model = repository.findById(2, 10000);
+        assertEquals("Invalid name", "Bar", model.get("name"));
+
+        model.put("name", "Barbaz");
+        model.save(10000);
+        List<Model> list = repository.findAll(
+                new Filter().where("name", "Barbaz"), 10000);
+        assertEquals("Invalid # of models returned", 1, list.size());
+
+        model.put("name", "Bar");
+        model.save();
+        assertFalse("Saved model is dirty", model.isDirty());
+
+        Thread.currentThread().interrupt();
+        try {
+            repository.findAll();
+            fail("Interrupt ignored");
+        } catch (InterruptedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBlockingCallInterrupted() throws Throwable {
+        final Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                caller.interrupt();
+            }
+        };
+        long started = System.currentTimeMillis();
+        interrupter.start();
+        try {
+            // The test server takes two seconds to find widget 99.
+            repository.findById(99, 0);
+            fail("Interrupt ignored");
+        } catch (InterruptedException e) {
+            // expected
+        }
+        interrupter.join();
+
+        // The aborted request releases its connection before the response.
+        while (adapter.getPoolStatistics().getLeasedConnections() > 0
+                && System.currentTimeMillis() - started < 1500) {
+            Thread.sleep(50);
+        }
+        assertEquals("Connection not released", 0,
+                adapter.getPoolStatistics().getLeasedConnections());
+    }
+
+    @Test
+    public void testIdentityMap() throws Throwable {
+        repository.enableIdentityMap(100, 1, TimeUnit.MINUTES);
+
+        Model first = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+        Model second = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+        assertSame("Model not shared", first, second);
+
+        List<Model> all = repository.findAllAsync().get(10, TimeUnit.SECONDS);
+        assertTrue("Model not reused", all.contains(first));
+
+        repository.disableIdentityMap();
+        Model third = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+        assertNotSame("Identity map not disabled", first, third);
+    }
+
+    @Test
+    public void testIdentityMapKeepsLocalChanges() throws Throwable {
+        repository.enableIdentityMap(100, 1, TimeUnit.MINUTES);
+
+        Model local = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+        local.put("name", "Local");
+
+        Model loaded = findInAll(1);
+        assertNotSame("Changed model overwritten", local, loaded);
+        assertEquals("Invalid name", "Foo", loaded.get("name"));
+        assertFalse("Loaded model is dirty", loaded.isDirty());
+        assertEquals("Local change lost", "Local", local.get("name"));
+        assertTrue("Local change marked as saved", local.isDirty());
+        assertSame("Changed model evicted", local, repository.getCachedObject(1));
+    }
+
+    @Test
+    public void testIdentityMapResetsRefreshedModels() throws Throwable {
+        repository.enableIdentityMap(100, 1, TimeUnit.MINUTES);
+
+        Model first = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+        // A property the server no longer has.
+        first.put("dropped", true);
+        first.markClean();
+
+        Model refreshed = findInAll(1);
+        assertSame("Model not reused", first, refreshed);
+        assertNull("Dropped property kept", refreshed.get("dropped"));
+        assertEquals("Invalid name", "Foo", refreshed.get("name"));
+    }
+
+    @Test
+    public void testCreateObjectIgnoresIdentityMap() throws Throwable {
+        repository.enableIdentityMap(100, 1, TimeUnit.MINUTES);
+        Model cached = repository.findByIdAsync(1).get(10, TimeUnit.SECONDS);
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("id", 1);
+        params.put("name", "Other");
+        Model created = repository.createObject(params);
+        assertNotSame("Cached model returned", cached, created);
+        assertEquals("Cached model changed", "Foo", cached.get("name"));
+        assertSame("Cached model replaced", cached, repository.getCachedObject(1));
+    }
+
+    @Test
+    public void testIdentityMapRefreshesCompactModels() throws Throwable {
+        repository.setCompactStorage(true);
+        repository.enableIdentityMap(100, 1, TimeUnit.MINUTES);
+
+        Model first = repository.findByIdAsync(2).get(10, TimeUnit.SECONDS);
+        Model refreshed = findInAll(2);
+        assertSame("Model not reused", first, refreshed);
+        assertEquals("Invalid name", "Bar", refreshed.get("name"));
+        assertFalse("Refreshed model is dirty", refreshed.isDirty());
+        assertEquals("Creation parameters kept",
+                Collections.singletonMap("id", 2),
+                refreshed.getCreationParameters());
+    }
+
+    private Model findInAll(Object id) throws Exception {
+        for (Model model : repository.findAllAsync().get(10, TimeUnit.SECONDS)) {
+            if (id.equals(model.getId())) {
+                return model;
+            }
+        }
+        throw new AssertionError("No model found with id " + id);
+    }
+
     @Test
     public void testUpdate() throws Throwable {
         doAsyncTest(new AsyncTest() {
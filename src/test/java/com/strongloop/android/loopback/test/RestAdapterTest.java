@@ -1,6 +1,14 @@
 package com.strongloop.android.loopback.test;
 
+import com.strongloop.android.loopback.Container;
+import com.strongloop.android.loopback.ContainerRepository;
+import com.strongloop.android.loopback.FileRepository;
 import com.strongloop.android.loopback.RestAdapter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class RestAdapterTest extends AsyncTestCase {
     private RestAdapter adapter;
@@ -11,4 +19,32 @@ public class RestAdapterTest extends AsyncTestCase {
         //testContext.clearSharedPreferences(RestAdapter.SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
         adapter = createRestAdapter();
     }
+
+    @Test
+    public void testGetRepositoryReturnsSharedInstance() {
+        assertSame(adapter.getRepository(ContainerRepository.class),
+                adapter.getRepository(ContainerRepository.class));
+        assertSame(adapter.getRepository("widget"),
+                adapter.getRepository("widget"));
+        assertNotSame(adapter.getRepository("widget"),
+                adapter.getRepository("gadget"));
+    }
+
+    @Test
+    public void testGetFileRepositoryIsKeyedByContainer() {
+        Container first = createContainer("first");
+        Container second = createContainer("second");
+
+        FileRepository repository = adapter.getFileRepository(first);
+        assertSame(repository, adapter.getFileRepository(createContainer("first")));
+        assertEquals("first", repository.getContainerName());
+        assertEquals("second",
+                adapter.getFileRepository(second).getContainerName());
+    }
+
+    private Container createContainer(String name) {
+        Container container = new Container();
+        container.setName(name);
+        return container;
+    }
 }
@@ -1,5 +1,6 @@
 package com.strongloop.android.remoting.test;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.strongloop.android.remoting.BeanUtil;
 import com.strongloop.android.remoting.Repository;
@@ -7,7 +8,9 @@ import com.strongloop.android.remoting.Transient;
 import com.strongloop.android.remoting.VirtualObject;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -134,6 +137,26 @@ public class BeanUtilTest {
         }
     }
 
+    public static class Overloaded extends VirtualObject {
+        private Object value;
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = "string:" + value;
+        }
+
+        public void setValue(long value) {
+            this.value = "long:" + value;
+        }
+
+        public List<String> getTags() {
+            return Arrays.asList("a", "b");
+        }
+    }
+
     @Test
     public void testBean() {
         Bean fromBean = new Bean();
@@ -204,4 +227,28 @@ public class BeanUtilTest {
         VirtualObject obj = new VirtualObject();
         assertTrue(BeanUtil.getProperties(obj, true, true).isEmpty());
     }
+
+    @Test
+    public void testSetterIsResolvedPerValueType() {
+        Overloaded bean = new Overloaded();
+
+        // Repeat to exercise the resolved-setter cache.
+        for (int i = 0; i < 2; i++) {
+            BeanUtil.setProperties(bean,
+                    ImmutableMap.of("value", "text"), true);
+            assertEquals("string:text", bean.getValue());
+
+            BeanUtil.setProperties(bean,
+                    ImmutableMap.of("value", 42), true);
+            assertEquals("long:42", bean.getValue());
+        }
+    }
+
+    @Test
+    public void testDeepCopyConvertsIterables() {
+        Map<String, Object> properties = BeanUtil.getProperties(
+                new Overloaded(), false, true);
+
+        assertEquals(Arrays.asList("a", "b"), properties.get("tags"));
+    }
 }
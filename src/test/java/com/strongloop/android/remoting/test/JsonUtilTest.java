@@ -7,8 +7,11 @@ import com.strongloop.android.remoting.adapters.Adapter;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.junit.Test;
 
+import java.io.StringReader;
+
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -248,4 +251,24 @@ public class JsonUtilTest {
         //doJsonParseTestShouldFail("0x100"); // Integer
         //doJsonParseTestShouldFail("[1,]"); // Parsed as [1,null]
     }
+
+    @Test
+    public void testReadJson() throws JSONException {
+        String json = "{\"name\":\"fred\",\"age\":100,\"nothing\":null,"
+                + "\"scores\":[5000,4000.5,[]],\"location\":{\"lat\":37.7833},"
+                + "\"isACoolPerson\":true,\"empty\":{}}";
+
+        Object fromReader = JsonUtil.readJson(
+                new JSONTokener(new StringReader(json)));
+
+        assertEquals(JsonUtil.fromJson(new JSONObject(json)), fromReader);
+        assertNull(JsonUtil.readJson(new JSONTokener("null")));
+        assertEquals(Arrays.asList(1, "two", null),
+                JsonUtil.readJson(new JSONTokener("[1, \"two\", null]")));
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadJsonRejectsTruncatedInput() throws JSONException {
+        JsonUtil.readJson(new JSONTokener("[{\"name\":\"fred\"},"));
+    }
 }
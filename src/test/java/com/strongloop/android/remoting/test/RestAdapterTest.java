@@ -1,14 +1,40 @@
 package com.strongloop.android.remoting.test;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.strongloop.android.remoting.Repository;
 import com.strongloop.android.remoting.VirtualObject;
+import com.strongloop.android.remoting.adapters.Adapter;
+import com.strongloop.android.remoting.adapters.Bulkhead;
+import com.strongloop.android.remoting.adapters.BulkheadFullException;
+import com.strongloop.android.remoting.adapters.BulkheadPolicy;
+import com.strongloop.android.remoting.adapters.CircuitBreaker;
+import com.strongloop.android.remoting.adapters.CircuitBreakerPolicy;
+import com.strongloop.android.remoting.adapters.CircuitOpenException;
+import com.strongloop.android.remoting.adapters.CompressionStatistics;
+import com.strongloop.android.remoting.adapters.ConnectionPoolStatistics;
 import com.strongloop.android.remoting.adapters.RestAdapter;
+import com.strongloop.android.remoting.adapters.RequestOptions;
+import com.strongloop.android.remoting.adapters.RequestTimeoutException;
+import com.strongloop.android.remoting.adapters.RestAdapterConfig;
+import com.strongloop.android.remoting.adapters.RestContractItem;
+import com.strongloop.android.remoting.adapters.ResponseCache;
+import com.strongloop.android.remoting.adapters.RetryPolicy;
+import org.json.JSONObject;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class RestAdapterTest extends AsyncTestCase {
@@ -25,11 +51,30 @@ public class RestAdapterTest extends AsyncTestCase {
     private RestAdapter adapter;
     private Repository testClass;
 
+    private final List<RestAdapter> adapters = new ArrayList<RestAdapter>();
+
     @Before
     public void setUp() throws Exception {
         adapter = createRestAdapter();
         testClass = new Repository("SimpleClass");
         testClass.setAdapter(adapter);
+        adapters.add(adapter);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (RestAdapter each : adapters) {
+            each.close();
+        }
+    }
+
+    /**
+     * Creates an adapter closed after the test.
+     */
+    private RestAdapter createRestAdapter(String url, RestAdapterConfig config) {
+        RestAdapter restAdapter = new RestAdapter(url, config);
+        adapters.add(restAdapter);
+        return restAdapter;
     }
 
     @Test
@@ -130,4 +175,572 @@ public class RestAdapterTest extends AsyncTestCase {
             }
         });
     }
+
+    @Test
+    public void testPoolStatistics() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        final RestAdapter pooledAdapter = createRestAdapter(REST_SERVER_URL, config);
+
+        for (int i = 0; i < 2; i++) {
+            doAsyncTest(new AsyncTest() {
+
+                @Override
+                public void run() {
+                    pooledAdapter.invokeStaticMethod("simple.getSecret", null,
+                            expectJsonResponse("shhh!"));
+                }
+            });
+        }
+
+        ConnectionPoolStatistics statistics = pooledAdapter.getPoolStatistics();
+        assertTrue(statistics.getOpenedConnections() >= 1);
+        assertEquals(2, statistics.getOpenedConnections()
+                + statistics.getReusedConnections());
+    }
+
+    @Test
+    public void testCompressionStatistics() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setCompressionEnabled(true);
+        final RestAdapter compressingAdapter = createRestAdapter(REST_SERVER_URL, config);
+
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                compressingAdapter.invokeStaticMethod("simple.getSecret", null,
+                        expectJsonResponse("shhh!"));
+            }
+        });
+
+        CompressionStatistics statistics = compressingAdapter.getCompressionStatistics();
+        assertTrue(statistics.getResponseBytes() > 0);
+        assertTrue(statistics.getCompressedResponseBytes() > 0);
+    }
+
+    @Test
+    public void testResponseCache() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setResponseCacheSize(1024 * 1024);
+        final RestAdapter cachingAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addGetSecretItem(cachingAdapter);
+
+        for (int i = 0; i < 2; i++) {
+            doAsyncTest(new AsyncTest() {
+
+                @Override
+                public void run() {
+                    cachingAdapter.invokeStaticMethod("contract.getSecret", null,
+                            expectJsonResponse("shhh!"));
+                }
+            });
+        }
+
+        ResponseCache cache = cachingAdapter.getResponseCache();
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount() + cache.getRevalidationCount());
+    }
+
+    @Test
+    public void testResponseCacheInvalidatedByWrites() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setResponseCacheSize(1024 * 1024);
+        RestAdapter cachingAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addCounterItems(cachingAdapter);
+
+        String value = invokeForData(cachingAdapter, "contract.getCounter");
+        assertEquals(value, invokeForData(cachingAdapter, "contract.getCounter"));
+        assertEquals(1, cachingAdapter.getResponseCache().getHitCount());
+
+        String incremented = invokeForData(cachingAdapter,
+                "contract.incrementCounter");
+        assertFalse(value.equals(incremented));
+        assertEquals(incremented,
+                invokeForData(cachingAdapter, "contract.getCounter"));
+        assertEquals(1, cachingAdapter.getResponseCache().getHitCount());
+    }
+
+    @Test
+    public void testResponseCacheHitCalledBackAsynchronously() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setResponseCacheSize(1024 * 1024);
+        final RestAdapter cachingAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addCounterItems(cachingAdapter);
+        invokeForData(cachingAdapter, "contract.getCounter");
+
+        final Thread[] threads = new Thread[2];
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                threads[0] = Thread.currentThread();
+                cachingAdapter.invokeStaticMethod("contract.getCounter", null,
+                        new Adapter.JsonObjectCallback() {
+                            @Override
+                            public void onSuccess(JSONObject response) {
+                                threads[1] = Thread.currentThread();
+                                notifyFinished();
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                notifyFailed(t);
+                            }
+                        });
+            }
+        });
+        assertEquals(1, cachingAdapter.getResponseCache().getHitCount());
+        assertFalse("Hit called back on the calling thread",
+                threads[0] == threads[1]);
+    }
+
+    @Test
+    public void testResponseCacheDiskEntriesHideCredentials() throws Throwable {
+        File directory = File.createTempFile("response-cache", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            RestAdapterConfig config = new RestAdapterConfig();
+            config.setResponseCacheSize(1024 * 1024);
+            config.setResponseCacheDirectory(directory, 1024 * 1024);
+
+            RestAdapter writer = createAuthorizedRestAdapter(config, "auth-token");
+            String value = invokeForData(writer, "contract.getCounter");
+
+            File[] files = directory.listFiles();
+            assertEquals(1, files.length);
+            String content = new String(Files.toByteArray(files[0]), Charsets.UTF_8);
+            assertFalse(content, content.contains("auth-token"));
+            assertFalse(content, content.contains("counter"));
+
+            // Another adapter finds the entry on disk by the same key.
+            RestAdapter reader = createAuthorizedRestAdapter(config, "auth-token");
+            assertEquals(value, invokeForData(reader, "contract.getCounter"));
+            assertEquals(1, reader.getResponseCache().getHitCount());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testRequestCoalescing() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setRequestCoalescingEnabled(true);
+        final RestAdapter coalescingAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addGetSecretItem(coalescingAdapter);
+
+        doAsyncTest(new AsyncTest() {
+
+            private final AtomicInteger pending = new AtomicInteger(3);
+
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    coalescingAdapter.invokeStaticMethod("contract.getSecret", null,
+                            new ExpectedDataCallback("shhh!") {
+
+                                @Override
+                                public void onSuccess(JSONObject response) {
+                                    assertEquals("shhh!", response.optString("data"));
+                                    if (pending.decrementAndGet() == 0) {
+                                        notifyFinished();
+                                    }
+                                }
+                            });
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRetryConnectionRefused() throws Throwable {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setMaxAttempts(3);
+        policy.setInitialBackoff(10);
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setRetryPolicy(policy);
+        // Nothing listens on port 1.
+        final RestAdapter unreachableAdapter =
+                createRestAdapter("http://localhost:1", config);
+        addGetSecretItem(unreachableAdapter);
+
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                unreachableAdapter.invokeStaticMethod("contract.getSecret", null,
+                        new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                notifyFailed(new AssertionError(
+                                        "Unexpected response: " + response));
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                assertTrue(t.toString(),
+                                        t instanceof ConnectException);
+                                notifyFinished();
+                            }
+                        });
+            }
+        });
+
+        assertEquals(2, unreachableAdapter.getRetryBudget().getRetries());
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Throwable {
+        CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+        policy.setMinimumCalls(1);
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setCircuitBreakerPolicy(policy);
+        final RestAdapter unreachableAdapter =
+                createRestAdapter("http://localhost:1", config);
+        addGetSecretItem(unreachableAdapter);
+
+        for (final Class<?> expected : new Class<?>[] {
+                ConnectException.class, CircuitOpenException.class }) {
+            doAsyncTest(new AsyncTest() {
+
+                @Override
+                public void run() {
+                    unreachableAdapter.invokeStaticMethod("contract.getSecret", null,
+                            new Adapter.Callback() {
+                                @Override
+                                public void onSuccess(String response) {
+                                    notifyFailed(new AssertionError(
+                                            "Unexpected response: " + response));
+                                }
+
+                                @Override
+                                public void onError(Throwable t) {
+                                    assertTrue(t.toString(), expected.isInstance(t));
+                                    notifyFinished();
+                                }
+                            });
+                }
+            });
+        }
+
+        CircuitBreaker circuitBreaker =
+                unreachableAdapter.getCircuitBreakers().get("contract.getSecret");
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(1, circuitBreaker.getRejectedCalls());
+    }
+
+    @Test
+    public void testCircuitBreakerRecordsRetries() throws Throwable {
+        CircuitBreakerPolicy breakerPolicy = new CircuitBreakerPolicy();
+        breakerPolicy.setMinimumCalls(2);
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setMaxAttempts(3);
+        retryPolicy.setInitialBackoff(10);
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setCircuitBreakerPolicy(breakerPolicy);
+        config.setRetryPolicy(retryPolicy);
+        final RestAdapter unreachableAdapter =
+                createRestAdapter("http://localhost:1", config);
+        addGetSecretItem(unreachableAdapter);
+
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                unreachableAdapter.invokeStaticMethod("contract.getSecret", null,
+                        new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                notifyFailed(new AssertionError(
+                                        "Unexpected response: " + response));
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                // The second failed attempt opened the breaker.
+                                assertTrue(t.toString(),
+                                        t instanceof CircuitOpenException);
+                                notifyFinished();
+                            }
+                        });
+            }
+        });
+
+        CircuitBreaker circuitBreaker =
+                unreachableAdapter.getCircuitBreakers().get("contract.getSecret");
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(1, circuitBreaker.getRejectedCalls());
+    }
+
+    @Test
+    public void testRequestTimeout() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setRequestTimeout(300);
+        RestAdapter timingOutAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addSlowItem(timingOutAdapter);
+
+        expectTimeout(timingOutAdapter, 3000, null);
+        assertEquals("slow", invokeSlow(timingOutAdapter, 10, null));
+    }
+
+    @Test
+    public void testReadTimeout() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setReadTimeout(300);
+        RestAdapter timingOutAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addSlowItem(timingOutAdapter);
+
+        expectTimeout(timingOutAdapter, 3000, null);
+        assertEquals("slow", invokeSlow(timingOutAdapter, 10, null));
+    }
+
+    @Test
+    public void testRequestDeadline() throws Throwable {
+        addSlowItem(adapter);
+
+        RequestOptions shortDeadline = new RequestOptions();
+        shortDeadline.setTimeout(300);
+        expectTimeout(adapter, 3000, shortDeadline);
+
+        RequestOptions longDeadline = new RequestOptions();
+        longDeadline.setTimeout(5000);
+        assertEquals("slow", invokeSlow(adapter, 100, longDeadline));
+    }
+
+    @Test
+    public void testRequestDeadlineNotCoalesced() throws Throwable {
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.setRequestCoalescingEnabled(true);
+        final RestAdapter coalescingAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addSlowItem(coalescingAdapter);
+
+        final RequestOptions deadline = new RequestOptions();
+        deadline.setTimeout(300);
+        doAsyncTest(new AsyncTest() {
+
+            private final AtomicInteger pending = new AtomicInteger(2);
+
+            @Override
+            public void run() {
+                coalescingAdapter.invokeStaticMethod("contract.slow",
+                        param("delay", 1000), new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                if (pending.decrementAndGet() == 0) {
+                                    notifyFinished();
+                                }
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                notifyFailed(t);
+                            }
+                        });
+                // The same request, but only this one may time out.
+                coalescingAdapter.invokeStaticMethod("contract.slow",
+                        param("delay", 1000), deadline, new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                notifyFailed(new AssertionError(
+                                        "Deadline ignored: " + response));
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                assertTrue(t.toString(),
+                                        t instanceof RequestTimeoutException);
+                                if (pending.decrementAndGet() == 0) {
+                                    notifyFinished();
+                                }
+                            }
+                        });
+            }
+        });
+    }
+
+    @Test
+    public void testBulkhead() throws Throwable {
+        BulkheadPolicy policy = new BulkheadPolicy();
+        policy.setMaxConcurrentRequests(1);
+        policy.setMaxQueueLength(1);
+        RestAdapterConfig config = new RestAdapterConfig();
+        config.addBulkhead("secrets", policy, "contract.*");
+        final RestAdapter limitedAdapter = createRestAdapter(REST_SERVER_URL, config);
+        addGetSecretItem(limitedAdapter);
+
+        doAsyncTest(new AsyncTest() {
+
+            private final AtomicInteger pending = new AtomicInteger(3);
+            private final AtomicInteger rejected = new AtomicInteger();
+
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    limitedAdapter.invokeStaticMethod("contract.getSecret", null,
+                            new ExpectedDataCallback("shhh!") {
+
+                                @Override
+                                public void onSuccess(JSONObject response) {
+                                    assertEquals("shhh!", response.optString("data"));
+                                    done();
+                                }
+
+                                @Override
+                                public void onError(Throwable t) {
+                                    assertTrue(t.toString(),
+                                            t instanceof BulkheadFullException);
+                                    rejected.incrementAndGet();
+                                    done();
+                                }
+                            });
+                }
+            }
+
+            private void done() {
+                if (pending.decrementAndGet() == 0) {
+                    assertEquals(1, rejected.get());
+                    notifyFinished();
+                }
+            }
+        });
+
+        Bulkhead bulkhead = limitedAdapter.getBulkheads().get("secrets");
+        assertEquals(2, bulkhead.getStartedRequests());
+        assertEquals(1, bulkhead.getQueuedRequests());
+        assertEquals(1, bulkhead.getRejectedRequests());
+    }
+
+    /**
+     * Maps "contract.getSecret" to its GET route, since only GET responses
+     * are cached, coalesced and retried.
+     */
+    /**
+     * Calls a route answering after <code>delay</code>, which must time out,
+     * and checks that the connection is returned to the pool.
+     */
+    private void expectTimeout(final RestAdapter restAdapter, final int delay,
+                               final RequestOptions options) throws Throwable {
+        final long started = System.currentTimeMillis();
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                restAdapter.invokeStaticMethod("contract.slow",
+                        param("delay", delay), options, new Adapter.Callback() {
+                            @Override
+                            public void onSuccess(String response) {
+                                notifyFailed(new AssertionError(
+                                        "Unexpected response: " + response));
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                assertTrue(t.toString(),
+                                        t instanceof RequestTimeoutException);
+                                notifyFinished();
+                            }
+                        });
+            }
+        });
+        assertTrue("Timed out too late",
+                System.currentTimeMillis() - started < delay);
+
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (restAdapter.getPoolStatistics().getLeasedConnections() > 0
+                && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(50);
+        }
+        assertEquals("Connection not released", 0,
+                restAdapter.getPoolStatistics().getLeasedConnections());
+    }
+
+    private String invokeSlow(final RestAdapter restAdapter, final int delay,
+                              final RequestOptions options) throws Throwable {
+        final String[] data = new String[1];
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                restAdapter.invokeStaticMethod("contract.slow",
+                        param("delay", delay), options,
+                        new Adapter.JsonObjectCallback() {
+                            @Override
+                            public void onSuccess(JSONObject response) {
+                                data[0] = response.optString("data");
+                                notifyFinished();
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                notifyFailed(t);
+                            }
+                        });
+            }
+        });
+        return data[0];
+    }
+
+    private static void addSlowItem(RestAdapter adapter) {
+        adapter.getContract().addItem(
+                new RestContractItem("/contract/slow", "GET"),
+                "contract.slow");
+    }
+
+    private RestAdapter createAuthorizedRestAdapter(RestAdapterConfig config,
+                                                    final String authorization) {
+        RestAdapter restAdapter = new RestAdapter(REST_SERVER_URL, config) {
+            {
+                this.getClient().addHeader("Authorization", authorization);
+            }
+        };
+        adapters.add(restAdapter);
+        addCounterItems(restAdapter);
+        return restAdapter;
+    }
+
+    /**
+     * Invokes <code>method</code> and returns the "data" field of the
+     * response.
+     */
+    private String invokeForData(final RestAdapter restAdapter,
+                                 final String method) throws Throwable {
+        final String[] data = new String[1];
+        doAsyncTest(new AsyncTest() {
+
+            @Override
+            public void run() {
+                restAdapter.invokeStaticMethod(method, null,
+                        new Adapter.JsonObjectCallback() {
+                            @Override
+                            public void onSuccess(JSONObject response) {
+                                data[0] = response.optString("data");
+                                notifyFinished();
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                notifyFailed(t);
+                            }
+                        });
+            }
+        });
+        return data[0];
+    }
+
+    private static void addCounterItems(RestAdapter adapter) {
+        adapter.getContract().addItem(
+                new RestContractItem("/contract/counter", "GET"),
+                "contract.getCounter");
+        adapter.getContract().addItem(
+                new RestContractItem("/contract/counter", "POST"),
+                "contract.incrementCounter");
+    }
+
+    private static void addGetSecretItem(RestAdapter adapter) {
+        adapter.getContract().addItem(
+                new RestContractItem("/contract/customizedGetSecret", "GET"),
+                "contract.getSecret");
+    }
 }
@@ -13,9 +13,12 @@ import org.junit.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class RestContractTest extends AsyncTestCase {
     /**
@@ -86,6 +89,84 @@ public class RestContractTest extends AsyncTestCase {
                 parent.getVerbForMethod("new.route"));
     }
 
+    @Test
+    public void testUrlTemplate() {
+        RestContractItem item = new RestContractItem("/widgets/:id/parts/:idx", "GET");
+
+        assertEquals("Wrong URL", "/widgets/7/parts/2",
+                item.buildUrl(ImmutableMap.of("idx", 2, "id", 7)));
+        assertEquals("Wrong URL", "/widgets/7/parts/:idx",
+                item.buildUrl(ImmutableMap.of("id", 7)));
+        assertEquals("Wrong URL", "/widgets/a%20b%2Fc/parts/%C3%A9",
+                item.buildUrl(ImmutableMap.of("id", "a b/c", "idx", "\u00e9")));
+    }
+
+    @Test
+    public void testGetItemForMethod() {
+        RestContract contract = new RestContract();
+        contract.addItem(RestContractItem.createMultipart("/files/:name", "PUT"),
+                "file.upload");
+
+        RestContractItem item = contract.getItemForMethod("file.upload");
+        assertEquals("Wrong verb", "PUT", item.getVerb());
+        assertEquals("Wrong URL", "/files/a.txt",
+                item.buildUrl(param("name", "a.txt")));
+
+        RestContractItem fallback = contract.getItemForMethod("file.other");
+        assertEquals("Wrong verb", "POST", fallback.getVerb());
+        assertEquals("Wrong URL", "file/other", fallback.buildUrl(null));
+        assertSame("Fallback not reused", fallback,
+                contract.getItemForMethod("file.other"));
+    }
+
+    @Test
+    public void testConcurrentChanges() throws Throwable {
+        final int count = 2000;
+        final RestContract contract = new RestContract();
+        final RestContract copy = new RestContract();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    contract.addItem(new RestContractItem("/items/" + i, "GET"),
+                            "item" + i);
+                }
+            }
+        };
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        // Copies a snapshot of the items being added.
+                        copy.addItemsFromContract(contract);
+                        RestContractItem item = contract.getItemForMethod("item" + i);
+                        assertTrue(item.getVerb(), "GET".equals(item.getVerb())
+                                || "POST".equals(item.getVerb()));
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        copy.addItemsFromContract(contract);
+        for (int i = 0; i < count; i++) {
+            assertEquals("Missing item", "/items/" + i,
+                    contract.getUrlForMethod("item" + i, null));
+            assertEquals("Missing item", "GET", copy.getVerbForMethod("item" + i));
+        }
+    }
+
     @Test
     public void testGet() throws Throwable {
         doAsyncTest(new AsyncTest() {
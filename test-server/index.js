@@ -47,11 +47,32 @@ Widget.destroyAll(function () {
   });
 });
 
+// Finding widget 99 takes two seconds (see ModelTest)
+Widget.beforeRemote('findById', function(ctx, unused, next) {
+  if (String(ctx.args.id) === '99')
+    return setTimeout(next, 2000);
+  next();
+});
+
 app.model(loopback.AccessToken, { public: false, dataSource: 'Memory' });
 app.model(loopback.ACL, { public: false, dataSource: 'Memory' });
 app.model(loopback.Role, { public: false, dataSource: 'Memory' });
 app.model(loopback.RoleMapping, { public: false, dataSource: 'Memory' });
 
+// Users logged in by LoopbackInterface (see LoopbackInterfaceTest);
+// logging in as slow@example.com takes two seconds
+var User = app.model(loopback.User, { dataSource: 'Memory' });
+User.create([
+  { email: 'user@example.com', password: 'secret' },
+  { email: 'slow@example.com', password: 'secret' }
+]);
+User.beforeRemote('login', function(ctx, unused, next) {
+  var credentials = ctx.args.credentials || {};
+  if (credentials.email === 'slow@example.com')
+    return setTimeout(next, 2000);
+  next();
+});
+
 app.model('Customer', {
   options: {
     base: 'User',
@@ -96,6 +117,71 @@ Container.destroyAll = function(cb) {
 Container.destroyAll.shared = true;
 Container.destroyAll.http = { verb: 'del', path: '/' }
 
+// Joins files uploaded as parts (see FileRepository.upload with a part size)
+Container.compose = function(container, name, parts, cb) {
+  var dir = path.join(storage, path.basename(container));
+  var target = fs.createWriteStream(path.join(dir, path.basename(name)));
+  async.eachSeries(
+    parts || [],
+    function(part, next) {
+      var file = path.join(dir, path.basename(part));
+      var source = fs.createReadStream(file);
+      source.on('error', next);
+      source.on('end', function() {
+        fs.unlink(file, next);
+      });
+      source.pipe(target, { end: false });
+    },
+    function(err) {
+      if (err) {
+        target.destroy();
+        return cb(err);
+      }
+      target.end(function() {
+        Container.getFile(container, name, cb);
+      });
+    }
+  );
+};
+
+Container.compose.shared = true;
+Container.compose.accepts = [
+  { arg: 'container', type: 'string', http: { source: 'path' } },
+  { arg: 'name', type: 'string' },
+  { arg: 'parts', type: 'array' }
+];
+Container.compose.returns = { arg: 'file', type: 'object', root: true };
+Container.compose.http = { verb: 'post', path: '/:container/compose' };
+
+// Serve stored files without support for ranges, or failing all ranges
+// but the first (see FileTest)
+function storedFile(req) {
+  return path.join(storage, path.basename(req.params.container),
+    path.basename(req.params.name));
+}
+
+app.get('/no-ranges/containers/:container/download/:name',
+  function(req, res, next) {
+    res.type('application/octet-stream');
+    fs.createReadStream(storedFile(req)).on('error', next).pipe(res);
+  });
+
+app.get('/failing-ranges/containers/:container/download/:name',
+  function(req, res, next) {
+    var file = storedFile(req);
+    fs.stat(file, function(err, stat) {
+      if (err) return next(err);
+      var range = /^bytes=(\d+)-(\d+)$/.exec(req.get('range') || '');
+      if (!range || range[1] !== '0')
+        return res.status(500).send('Range failed');
+      var end = Math.min(+range[2], stat.size - 1);
+      res.status(206);
+      res.set('Content-Range', 'bytes 0-' + end + '/' + stat.size);
+      res.type('application/octet-stream');
+      fs.createReadStream(file, { start: 0, end: end }).pipe(res);
+    });
+  });
+
 app.use(require('morgan')('loopback> :method :url :status'));
 app.enableAuth();
 app.use(loopback.rest());
@@ -68,11 +68,52 @@ function binary(res) {
 binary.shared = true;
 binary.accepts = [{arg: 'res', type: 'object', 'http': {source: 'res'}}];
 
+/**
+ * Returns after the given delay, in milliseconds.
+ */
+function slow(delay, callback) {
+  setTimeout(function() {
+    callback(null, 'slow');
+  }, delay || 0);
+}
+slow.shared = true;
+slow.accepts = [{ arg: 'delay', type: 'number' }];
+slow.returns = [{ arg: 'data', type: 'string' }];
+slow.http = { path: '/slow', verb: 'GET' };
+
+var counter = 0;
+
+/**
+ * Returns the value of a counter, cacheable for a minute.
+ */
+function getCounter(res, callback) {
+  res.set('Cache-Control', 'max-age=60');
+  callback(null, counter);
+}
+getCounter.shared = true;
+getCounter.accepts = [{arg: 'res', type: 'object', 'http': {source: 'res'}}];
+getCounter.returns = [{ arg: 'data', type: 'number' }];
+getCounter.http = { path: '/counter', verb: 'GET' };
+
+/**
+ * Increments the counter and returns its new value.
+ */
+function incrementCounter(callback) {
+  callback(null, ++counter);
+}
+incrementCounter.shared = true;
+incrementCounter.accepts = [];
+incrementCounter.returns = [{ arg: 'data', type: 'number' }];
+incrementCounter.http = { path: '/counter', verb: 'POST' };
+
 module.exports = {
   getSecret: getSecret,
   transform: transform,
   geopoint: geopoint,
   getAuthorizationHeader: getAuthorizationHeader,
   binary: binary,
-  list: list
+  list: list,
+  slow: slow,
+  getCounter: getCounter,
+  incrementCounter: incrementCounter
 };